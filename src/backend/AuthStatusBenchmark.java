@@ -0,0 +1,91 @@
+package com.weddingvendor.backend;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rough throughput comparison of the auth status check with stateless
+ * tokens versus a server-side session lookup.
+ *
+ * The session case models what a servlet container does per request: look
+ * the session id up in a shared map and read the user attributes. The token
+ * case verifies an HMAC signature and parses the claims. Run with
+ * {@code java com.weddingvendor.backend.AuthStatusBenchmark [threads] [seconds]}.
+ */
+public class AuthStatusBenchmark {
+    private static final int USERS = 10_000;
+    
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        
+        AuthTokenService tokenService = AuthTokenService.getInstance();
+        String[] tokens = new String[USERS];
+        String[] sessionIds = new String[USERS];
+        Map<String, Map<String, Object>> sessions = new ConcurrentHashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            tokens[i] = tokenService.issue("user" + i, "client", 3600);
+            sessionIds[i] = UUID.randomUUID().toString();
+            Map<String, Object> attributes = new ConcurrentHashMap<>();
+            attributes.put("userId", "user" + i);
+            attributes.put("userRole", "client");
+            sessions.put(sessionIds[i], attributes);
+        }
+        
+        System.out.println("Threads: " + threads + ", duration: " + seconds + "s per run");
+        
+        // Warm up both paths before measuring
+        run("warmup", threads, 1, i -> tokenService.verify(tokens[i]) != null);
+        run("warmup", threads, 1, i -> sessions.get(sessionIds[i]).get("userId") != null);
+        
+        double tokenRate = run("token", threads, seconds, i -> tokenService.verify(tokens[i]) != null);
+        double sessionRate = run("session", threads, seconds, i -> {
+            Map<String, Object> attributes = sessions.get(sessionIds[i]);
+            return attributes != null && attributes.get("userId") != null;
+        });
+        
+        System.out.printf("token/session throughput ratio: %.2f%n", tokenRate / sessionRate);
+    }
+    
+    private interface Check {
+        boolean authenticate(int user);
+    }
+    
+    private static double run(String name, int threads, int seconds, Check check) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        LongAdder failures = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 7919;
+            Thread worker = new Thread(() -> {
+                long count = 0;
+                int user = offset % USERS;
+                while (System.nanoTime() < deadline) {
+                    for (int i = 0; i < 1000; i++) {
+                        if (!check.authenticate(user)) {
+                            failures.increment();
+                        }
+                        user = user + 1 == USERS ? 0 : user + 1;
+                    }
+                    count += 1000;
+                }
+                operations.add(count);
+                done.countDown();
+            });
+            worker.start();
+        }
+        done.await();
+        
+        double rate = operations.sum() / (double) seconds;
+        if (!name.equals("warmup")) {
+            System.out.printf("%-8s %,14.0f checks/s%s%n", name, rate,
+                failures.sum() > 0 ? " (" + failures.sum() + " failures)" : "");
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,199 @@
+package com.weddingvendor.backend;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Issues and verifies stateless, HMAC-SHA256 signed auth tokens.
+ *
+ * A token is {@code kid.payload.signature}, where payload is the base64url
+ * encoding of userId, role and expiry (epoch seconds) and the signature
+ * covers both kid and payload. Verification needs only the key ring, so any
+ * node holding the same keys can authenticate a request without a session
+ * lookup.
+ *
+ * Keys are rotated by adding a new key and making it the signing key; older
+ * keys stay valid for verification until removed, so tokens issued before a
+ * rotation keep working until they expire or their key is retired. A shared
+ * secret can be supplied through the AUTH_TOKEN_SECRET environment variable;
+ * otherwise a random key is generated and tokens do not survive a restart.
+ */
+public class AuthTokenService {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    
+    private static final AuthTokenService instance = new AuthTokenService();
+    
+    private final Map<String, SecretKeySpec> keys = new ConcurrentHashMap<>();
+    private volatile String signingKeyId;
+    private int keyCounter = 0;
+    
+    // Mac is not thread-safe and init() is relatively costly, so keep one per thread per key
+    private final ThreadLocal<Map<SecretKeySpec, Mac>> macs = ThreadLocal.withInitial(IdentityHashMap::new);
+    
+    AuthTokenService() {
+        String secret = System.getenv("AUTH_TOKEN_SECRET");
+        if (secret != null && !secret.isEmpty()) {
+            addKey("k0", secret.getBytes(StandardCharsets.UTF_8));
+            signingKeyId = "k0";
+        } else {
+            System.out.println("AUTH_TOKEN_SECRET not set, generating a random token signing key");
+            rotateKey();
+        }
+    }
+    
+    public static AuthTokenService getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Add a verification key. It is only used for signing once selected with setSigningKey.
+     */
+    public void addKey(String keyId, byte[] secret) {
+        if (keyId.indexOf('.') >= 0) {
+            throw new IllegalArgumentException("Key id must not contain '.'");
+        }
+        keys.put(keyId, new SecretKeySpec(secret, ALGORITHM));
+    }
+    
+    public void setSigningKey(String keyId) {
+        if (!keys.containsKey(keyId)) {
+            throw new IllegalArgumentException("Unknown key id: " + keyId);
+        }
+        signingKeyId = keyId;
+    }
+    
+    /**
+     * Retire a key. Tokens signed with it stop verifying immediately.
+     */
+    public void removeKey(String keyId) {
+        if (keyId.equals(signingKeyId)) {
+            throw new IllegalArgumentException("Cannot remove the current signing key");
+        }
+        keys.remove(keyId);
+    }
+    
+    /**
+     * Generate a random key and start signing with it, returning its id
+     */
+    public synchronized String rotateKey() {
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        String keyId;
+        do {
+            keyId = "r" + (keyCounter++);
+        } while (keys.containsKey(keyId));
+        addKey(keyId, secret);
+        signingKeyId = keyId;
+        return keyId;
+    }
+    
+    /**
+     * Issue a token for the user, valid for ttlSeconds
+     */
+    public String issue(String userId, String role, long ttlSeconds) {
+        long expiresAt = System.currentTimeMillis() / 1000 + ttlSeconds;
+        String claims = userId + "\n" + (role != null ? role : "") + "\n" + expiresAt;
+        String keyId = signingKeyId;
+        String signed = keyId + "." + ENCODER.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        return signed + "." + ENCODER.encodeToString(sign(keyId, signed));
+    }
+    
+    /**
+     * Verify a token, returning its claims, or null if it is malformed,
+     * signed with an unknown key, tampered with or expired.
+     */
+    public TokenClaims verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot) {
+            return null;
+        }
+        
+        String keyId = token.substring(0, firstDot);
+        if (!keys.containsKey(keyId)) {
+            return null;
+        }
+        
+        String signed = token.substring(0, lastDot);
+        byte[] expected = sign(keyId, signed);
+        byte[] actual;
+        byte[] claimBytes;
+        try {
+            actual = DECODER.decode(token.substring(lastDot + 1));
+            claimBytes = DECODER.decode(token.substring(firstDot + 1, lastDot));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (expected == null || !MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+        
+        String[] parts = new String(claimBytes, StandardCharsets.UTF_8).split("\n", -1);
+        if (parts.length != 3) {
+            return null;
+        }
+        long expiresAt;
+        try {
+            expiresAt = Long.parseLong(parts[2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (expiresAt <= System.currentTimeMillis() / 1000) {
+            return null;
+        }
+        
+        return new TokenClaims(parts[0], parts[1].isEmpty() ? null : parts[1], expiresAt);
+    }
+    
+    private byte[] sign(String keyId, String data) {
+        SecretKeySpec key = keys.get(keyId);
+        if (key == null) {
+            return null;
+        }
+        try {
+            Map<SecretKeySpec, Mac> threadMacs = macs.get();
+            Mac mac = threadMacs.get(key);
+            if (mac == null) {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                threadMacs.put(key, mac);
+            }
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Unable to sign auth token", e);
+        }
+    }
+    
+    /**
+     * Claims carried by a verified token
+     */
+    public static class TokenClaims {
+        private final String userId;
+        private final String role;
+        private final long expiresAt;
+        
+        TokenClaims(String userId, String role, long expiresAt) {
+            this.userId = userId;
+            this.role = role;
+            this.expiresAt = expiresAt;
+        }
+        
+        public String getUserId() { return userId; }
+        public String getRole() { return role; }
+        public long getExpiresAt() { return expiresAt; }
+    }
+}
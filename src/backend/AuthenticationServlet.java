@@ -1,64 +1,48 @@
 
 package com.weddingvendor.backend;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.weddingvendor.security.LoginRateLimiter;
 
 /**
  * Servlet handling user authentication (login, registration, etc.)
+ *
+ * By default users are authenticated with stateless signed tokens (see
+ * AuthTokenService), returned in the response body and as an HttpOnly
+ * cookie and accepted back as either the cookie or an "Authorization: Bearer"
+ * header. Set the authMode init parameter to "session" to use revocable
+ * server-side sessions from a SessionStore instead; the sessionStore init
+ * parameter picks "memory" (the default) or "file", which survives restarts.
  */
 @WebServlet("/api/auth/*")
 public class AuthenticationServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     
-    // Simple in-memory user store - in a real app this would be a database
-    private static final Map<String, User> usersByEmail = new HashMap<>();
-    private static final Map<String, User> usersById = new HashMap<>();
+    private static final String TOKEN_COOKIE = "auth_token";
     
-    // Initialize with demo accounts
-    static {
-        // Client account
-        User clientUser = new User();
-        clientUser.setId(UUID.randomUUID().toString());
-        clientUser.setEmail("client@example.com");
-        clientUser.setPassword("password"); // In a real app, this would be hashed
-        clientUser.setName("Demo Client");
-        clientUser.setRole("user");
-        usersByEmail.put(clientUser.getEmail(), clientUser);
-        usersById.put(clientUser.getId(), clientUser);
-        
-        // Vendor account
-        User vendorUser = new User();
-        vendorUser.setId(UUID.randomUUID().toString());
-        vendorUser.setEmail("vendor@example.com");
-        vendorUser.setPassword("password"); // In a real app, this would be hashed
-        vendorUser.setName("Demo Vendor");
-        vendorUser.setRole("vendor");
-        usersByEmail.put(vendorUser.getEmail(), vendorUser);
-        usersById.put(vendorUser.getId(), vendorUser);
-        
-        // Admin account
-        User adminUser = new User();
-        adminUser.setId(UUID.randomUUID().toString());
-        adminUser.setEmail("admin@example.com");
-        adminUser.setPassword("password"); // In a real app, this would be hashed
-        adminUser.setName("System Administrator");
-        adminUser.setRole("admin");
-        usersByEmail.put(adminUser.getEmail(), adminUser);
-        usersById.put(adminUser.getId(), adminUser);
-    }
+    // Servlet context attribute holding the SessionStore in session mode, for
+    // other servlets that authenticate the same tokens
+    static final String SESSION_STORE_ATTRIBUTE = "com.weddingvendor.backend.sessionStore";
+    private static final long TOKEN_TTL_SECONDS = 24 * 60 * 60;
+    
+    private final AuthTokenService tokenService = AuthTokenService.getInstance();
+    private final PasswordHasher passwordHasher = PasswordHasher.getInstance();
+    private final LoginRateLimiter rateLimiter = LoginRateLimiter.getShared();
+    private final UserDirectory userDirectory = UserDirectory.getInstance();
+    
+    // Only set in session mode
+    private SessionStore sessionStore;
     
     /**
      * @see HttpServlet#HttpServlet()
@@ -66,7 +50,26 @@ public class AuthenticationServlet extends HttpServlet {
     public AuthenticationServlet() {
         super();
     }
-
+    
+    @Override
+    public void init() throws ServletException {
+        if ("session".equalsIgnoreCase(getInitParameter("authMode"))) {
+            sessionStore = "file".equalsIgnoreCase(getInitParameter("sessionStore"))
+                ? new FileSessionStore(new File("data/sessions.log"))
+                : new InMemorySessionStore();
+            getServletContext().setAttribute(SESSION_STORE_ATTRIBUTE, sessionStore);
+        }
+        System.out.println("AuthenticationServlet using " + (sessionStore != null ? "session" : "token") + " authentication");
+    }
+    
+    @Override
+    public void destroy() {
+        if (sessionStore != null) {
+            getServletContext().removeAttribute(SESSION_STORE_ATTRIBUTE);
+            sessionStore.close();
+        }
+    }
+    
     /**
      * Handle POST requests for login, register, etc.
      */
@@ -128,15 +131,33 @@ public class AuthenticationServlet extends HttpServlet {
     private void handleLogin(HttpServletRequest request, HttpServletResponse response, PrintWriter out) throws IOException {
         LoginRequest loginRequest = gson.fromJson(request.getReader(), LoginRequest.class);
         
-        User user = usersByEmail.get(loginRequest.getEmail());
+        // Per-IP limits are applied by LoginRateLimitFilter before the body is read
+        long waitMillis = rateLimiter.tryAcquireEmail(loginRequest.getEmail());
+        if (waitMillis > 0) {
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf(LoginRateLimiter.toRetryAfterSeconds(waitMillis)));
+            out.print(gson.toJson(new ApiResponse(false, "Too many login attempts, please retry later")));
+            return;
+        }
+        
+        UserAccount user = userDirectory.findByEmail(loginRequest.getEmail());
         
-        if (user != null && user.getPassword().equals(loginRequest.getPassword()) && 
+        PasswordHasher.VerifyResult check;
+        try {
+            check = passwordHasher.verify(loginRequest.getPassword(), user != null ? user.getPassword() : null);
+        } catch (PasswordHasher.BusyException e) {
+            respondBusy(response, out, e);
+            return;
+        }
+        
+        if (user != null && check.matches() && 
             (loginRequest.getRole() == null || user.getRole().equals(loginRequest.getRole()))) {
             
-            // Create user session
-            HttpSession session = request.getSession(true);
-            session.setAttribute("userId", user.getId());
-            session.setAttribute("userRole", user.getRole());
+            if (check.getRehash() != null) {
+                userDirectory.updatePassword(user, check.getRehash());
+            }
+            
+            String token = startAuthentication(request, response, user);
             
             // Return success with user info (never send password back)
             UserResponse userResponse = new UserResponse();
@@ -146,7 +167,7 @@ public class AuthenticationServlet extends HttpServlet {
             userResponse.setRole(user.getRole());
             
             response.setStatus(HttpServletResponse.SC_OK);
-            out.print(gson.toJson(new ApiResponse(true, "Login successful", userResponse)));
+            out.print(gson.toJson(new ApiResponse(true, "Login successful", userResponse, token)));
         } else {
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             out.print(gson.toJson(new ApiResponse(false, "Invalid email or password")));
@@ -157,28 +178,31 @@ public class AuthenticationServlet extends HttpServlet {
         RegisterRequest registerRequest = gson.fromJson(request.getReader(), RegisterRequest.class);
         
         // Check if email already exists
-        if (usersByEmail.containsKey(registerRequest.getEmail())) {
+        if (userDirectory.emailExists(registerRequest.getEmail())) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             out.print(gson.toJson(new ApiResponse(false, "Email already registered")));
             return;
         }
         
-        // Create new user
-        User newUser = new User();
-        newUser.setId(UUID.randomUUID().toString());
-        newUser.setEmail(registerRequest.getEmail());
-        newUser.setPassword(registerRequest.getPassword()); // In a real app, this would be hashed
-        newUser.setName(registerRequest.getName());
-        newUser.setRole(registerRequest.getRole());
+        String passwordHash;
+        try {
+            passwordHash = passwordHasher.hash(registerRequest.getPassword());
+        } catch (PasswordHasher.BusyException e) {
+            respondBusy(response, out, e);
+            return;
+        }
         
-        // Save to our "database"
-        usersByEmail.put(newUser.getEmail(), newUser);
-        usersById.put(newUser.getId(), newUser);
+        // Create new user; the directory rejects the email if a concurrent registration claimed it first
+        UserAccount newUser = userDirectory.register(registerRequest.getEmail(), passwordHash,
+            registerRequest.getName(), registerRequest.getRole());
+        if (newUser == null) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            out.print(gson.toJson(new ApiResponse(false, "Email already registered")));
+            return;
+        }
         
-        // Create session for the new user
-        HttpSession session = request.getSession(true);
-        session.setAttribute("userId", newUser.getId());
-        session.setAttribute("userRole", newUser.getRole());
+        // Authenticate the new user
+        String token = startAuthentication(request, response, newUser);
         
         // Return success with user info (never send password back)
         UserResponse userResponse = new UserResponse();
@@ -188,25 +212,95 @@ public class AuthenticationServlet extends HttpServlet {
         userResponse.setRole(newUser.getRole());
         
         response.setStatus(HttpServletResponse.SC_CREATED);
-        out.print(gson.toJson(new ApiResponse(true, "Registration successful", userResponse)));
+        out.print(gson.toJson(new ApiResponse(true, "Registration successful", userResponse, token)));
+    }
+    
+    private void respondBusy(HttpServletResponse response, PrintWriter out, PasswordHasher.BusyException e) {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        out.print(gson.toJson(new ApiResponse(false, e.getMessage())));
+    }
+    
+    /**
+     * Issue a signed token for the user, or create a session in session
+     * mode, and set it as a cookie. Returns the token.
+     */
+    private String startAuthentication(HttpServletRequest request, HttpServletResponse response, UserAccount user) {
+        String token = sessionStore != null
+            ? sessionStore.createSession(user.getId(), TOKEN_TTL_SECONDS * 1000)
+            : tokenService.issue(user.getId(), user.getRole(), TOKEN_TTL_SECONDS);
+        response.addCookie(tokenCookie(token, (int) TOKEN_TTL_SECONDS));
+        return token;
+    }
+    
+    private Cookie tokenCookie(String value, int maxAge) {
+        Cookie cookie = new Cookie(TOKEN_COOKIE, value);
+        cookie.setHttpOnly(true);
+        cookie.setPath("/");
+        cookie.setMaxAge(maxAge);
+        return cookie;
+    }
+    
+    /**
+     * Read the auth token from the Authorization header or the auth cookie
+     */
+    static String readToken(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ")) {
+            return header.substring(7).trim();
+        }
+        
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (TOKEN_COOKIE.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
     }
     
     private void handleLogout(HttpServletRequest request, HttpServletResponse response, PrintWriter out) throws IOException {
-        HttpSession session = request.getSession(false);
-        if (session != null) {
-            session.invalidate();
+        // Signed tokens are stateless, so a copied one stays valid until it
+        // expires or its signing key is retired; sessions end immediately
+        if (sessionStore != null) {
+            sessionStore.invalidate(readToken(request));
         }
+        response.addCookie(tokenCookie("", 0));
         
         response.setStatus(HttpServletResponse.SC_OK);
         out.print(gson.toJson(new ApiResponse(true, "Logged out successfully")));
     }
     
     private void handleStatusCheck(HttpServletRequest request, HttpServletResponse response, PrintWriter out) throws IOException {
-        HttpSession session = request.getSession(false);
+        String userId = null;
+        String role = null;
+        
+        AuthTokenService.TokenClaims claims = null;
+        if (sessionStore != null) {
+            userId = sessionStore.getUserId(readToken(request));
+        } else {
+            claims = tokenService.verify(readToken(request));
+            if (claims != null) {
+                userId = claims.getUserId();
+                role = claims.getRole();
+            }
+        }
         
-        if (session != null && session.getAttribute("userId") != null) {
-            String userId = (String) session.getAttribute("userId");
-            User user = usersById.get(userId);
+        if (userId != null) {
+            UserAccount user = userDirectory.findById(userId);
+            
+            if (user == null && claims != null) {
+                // Signed by a trusted node but unknown to this one: the token's claims are enough
+                UserResponse userResponse = new UserResponse();
+                userResponse.setId(userId);
+                userResponse.setRole(role);
+                
+                response.setStatus(HttpServletResponse.SC_OK);
+                out.print(gson.toJson(new ApiResponse(true, "Authenticated", userResponse)));
+                return;
+            }
             
             if (user != null) {
                 // User is authenticated, return user info
@@ -228,29 +322,6 @@ public class AuthenticationServlet extends HttpServlet {
     }
     
     // Model classes
-    static class User {
-        private String id;
-        private String email;
-        private String password;
-        private String name;
-        private String role;
-        
-        public String getId() { return id; }
-        public void setId(String id) { this.id = id; }
-        
-        public String getEmail() { return email; }
-        public void setEmail(String email) { this.email = email; }
-        
-        public String getPassword() { return password; }
-        public void setPassword(String password) { this.password = password; }
-        
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        
-        public String getRole() { return role; }
-        public void setRole(String role) { this.role = role; }
-    }
-    
     static class LoginRequest {
         private String email;
         private String password;
@@ -296,6 +367,7 @@ public class AuthenticationServlet extends HttpServlet {
         private boolean success;
         private String message;
         private Object data;
+        private String token;
         
         public ApiResponse(boolean success, String message) {
             this.success = success;
@@ -307,5 +379,10 @@ public class AuthenticationServlet extends HttpServlet {
             this.message = message;
             this.data = data;
         }
+        
+        public ApiResponse(boolean success, String message, Object data, String token) {
+            this(success, message, data);
+            this.token = token;
+        }
     }
 }
@@ -23,6 +23,24 @@ public class Booking {
     // Default constructor
     public Booking() {}
     
+    // Copy constructor, for snapshots that must not change underneath the reader
+    public Booking(Booking other) {
+        this.id = other.id;
+        this.userId = other.userId;
+        this.userName = other.userName;
+        this.vendorId = other.vendorId;
+        this.vendorName = other.vendorName;
+        this.serviceName = other.serviceName;
+        this.eventType = other.eventType;
+        this.serviceDate = other.serviceDate;
+        this.amount = other.amount;
+        this.status = other.status;
+        this.paymentStatus = other.paymentStatus;
+        this.notes = other.notes;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+    
     // Getters and setters
     public String getId() {
         return id;
@@ -0,0 +1,93 @@
+package com.weddingvendor.backend;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memory check of BookingSystem's search indexes at scale.
+ *
+ * Creates bookings with a unique client and a unique amount each, the worst
+ * case for per-key bitmaps, and measures retained heap at every step. The
+ * heap must grow linearly: it fails if a booking costs more than
+ * MAX_BYTES_PER_BOOKING at the largest size, or if doubling the bookings
+ * more than DOUBLING_LIMIT times the heap. Also spot-checks client and
+ * amount searches against the bookings created. Exits with status 1 on
+ * failure. Run with
+ * {@code java com.weddingvendor.backend.BookingIndexMemoryCheck [maxBookings]}.
+ * Compiled together with WeddingVendorSystem, whose booking classes it uses.
+ */
+public class BookingIndexMemoryCheck {
+    private static final long MAX_BYTES_PER_BOOKING = 4096;
+    private static final double DOUBLING_LIMIT = 2.5;
+
+    public static void main(String[] args) {
+        int maxBookings = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        long baseline = usedHeap();
+        BookingSystem bookings = new BookingSystem();
+        List<Booking> created = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        boolean failed = false;
+        long previousBytes = 0;
+        for (int size = maxBookings / 4; size <= maxBookings; size *= 2) {
+            while (created.size() < size) {
+                int i = created.size();
+                Booking booking = new Booking();
+                booking.setClientId("client" + i);
+                booking.setVendorId("vendor" + (i % 50));
+                booking.setAmount(1000 + i * 0.01);
+                booking.setEventDate(start.plusHours(i));
+                bookings.createBooking(booking);
+                created.add(booking);
+            }
+            long bytes = usedHeap() - baseline;
+            System.out.printf("%,9d bookings: %,7d KB retained, %,5d bytes per booking%n",
+                size, bytes / 1024, bytes / size);
+            if (previousBytes > 0 && bytes > previousBytes * DOUBLING_LIMIT) {
+                System.out.println("FAIL: heap grew " + String.format("%.1f", (double) bytes / previousBytes)
+                    + "x when bookings doubled");
+                failed = true;
+            }
+            previousBytes = bytes;
+        }
+        if (previousBytes / created.size() > MAX_BYTES_PER_BOOKING) {
+            System.out.println("FAIL: more than " + MAX_BYTES_PER_BOOKING + " bytes per booking");
+            failed = true;
+        }
+
+        for (int i = 0; i < created.size(); i += created.size() / 7) {
+            Booking expected = created.get(i);
+            Map<String, String> criteria = new HashMap<>();
+            criteria.put("clientId", expected.getClientId());
+            criteria.put("minAmount", String.valueOf(expected.getAmount()));
+            criteria.put("maxAmount", String.valueOf(expected.getAmount() + 0.005));
+            List<Booking> found = bookings.searchBookings(criteria);
+            if (found.size() != 1 || found.get(0) != expected) {
+                System.out.println("FAIL: search for " + expected.getClientId() + " found " + found.size() + " bookings");
+                failed = true;
+            }
+        }
+
+        if (failed) {
+            System.exit(1);
+        }
+        System.out.println("Index memory grows linearly");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -2,11 +2,16 @@
 package com.weddingvendor.backend;
 
 import java.io.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 /**
@@ -18,6 +23,15 @@ public class BookingSystem {
     private static final String DATA_FILE = "bookings.dat";
     private static boolean isInitialized = false;
     
+    // Guards the bookings list; writers (including whole bulk batches) take the write lock
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Number of bookings copied per read-lock hold during a streaming export
+    private static final int EXPORT_CHUNK_SIZE = 256;
+    
+    // Bumped on every delete so exports can tell when list positions shifted
+    private static long deleteCount = 0;
+    
     // Initialize with sample data or load from file
     static {
         loadFromFile();
@@ -138,31 +152,130 @@ public class BookingSystem {
      * Get all bookings in the system
      */
     public List<Booking> getAllBookings() {
-        return new ArrayList<>(bookings);
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(bookings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Stream bookings to a sink, optionally only those updated at or after
+     * updatedSince (see Timestamps).
+     *
+     * The list is walked in small chunks under the read lock. Each booking in
+     * a chunk is copied under the lock, so a record is never written half
+     * updated, and the chunk is written with the lock released, so memory
+     * stays at one chunk no matter how many bookings exist and writers are
+     * never blocked by a slow client.
+     * Bookings created during the export are included; if a delete shifts
+     * positions, the walk resumes after the last booking it saw.
+     */
+    public void exportBookings(Instant updatedSince, RecordSink<Booking> sink) throws IOException {
+        List<Booking> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        int position = 0;
+        String lastSeenId = null;
+        long seenDeletes;
+        
+        lock.readLock().lock();
+        try {
+            seenDeletes = deleteCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        while (true) {
+            chunk.clear();
+            lock.readLock().lock();
+            try {
+                if (deleteCount != seenDeletes && lastSeenId != null) {
+                    position = resumePosition(lastSeenId, position, deleteCount - seenDeletes);
+                    seenDeletes = deleteCount;
+                }
+                
+                int scanned = 0;
+                while (position < bookings.size() && scanned < EXPORT_CHUNK_SIZE) {
+                    Booking booking = bookings.get(position++);
+                    scanned++;
+                    lastSeenId = booking.getId();
+                    if (Timestamps.isAtOrAfter(booking.getUpdatedAt(), booking.getCreatedAt(), updatedSince)) {
+                        chunk.add(new Booking(booking));
+                    }
+                }
+                
+                if (scanned == 0) {
+                    return;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            
+            for (Booking booking : chunk) {
+                sink.accept(booking);
+            }
+        }
+    }
+    
+    /**
+     * Find where to continue an export after deletes shifted the list left.
+     * The shift is at most the number of deletes since the last chunk, so only
+     * that window needs searching. If the last booking sent was itself deleted,
+     * resume at the earliest possible position: a few records may repeat, but
+     * none are skipped.
+     */
+    private static int resumePosition(String lastSeenId, int position, long deletesSince) {
+        int end = Math.min(position, bookings.size());
+        int start = (int) Math.max(0, position - deletesSince - 1);
+        for (int i = end - 1; i >= start; i--) {
+            if (bookings.get(i).getId().equals(lastSeenId)) {
+                return i + 1;
+            }
+        }
+        return Math.min(start, bookings.size());
     }
     
     /**
      * Get bookings for a specific vendor
      */
     public List<Booking> getVendorBookings(String vendorId) {
-        return bookings.stream()
-            .filter(booking -> booking.getVendorId().equals(vendorId))
-            .collect(Collectors.toList());
+        lock.readLock().lock();
+        try {
+            return bookings.stream()
+                .filter(booking -> booking.getVendorId().equals(vendorId))
+                .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
      * Get bookings for a specific user
      */
     public List<Booking> getUserBookings(String userId) {
-        return bookings.stream()
-            .filter(booking -> booking.getUserId().equals(userId))
-            .collect(Collectors.toList());
+        lock.readLock().lock();
+        try {
+            return bookings.stream()
+                .filter(booking -> booking.getUserId().equals(userId))
+                .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
      * Get a specific booking by ID
      */
     public Booking getBookingById(String bookingId) {
+        lock.readLock().lock();
+        try {
+            return findById(bookingId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private static Booking findById(String bookingId) {
         return bookings.stream()
             .filter(booking -> booking.getId().equals(bookingId))
             .findFirst()
@@ -183,11 +296,16 @@ public class BookingSystem {
         booking.setCreatedAt(now);
         booking.setUpdatedAt(now);
         
-        // Add to collection
-        bookings.add(booking);
-        
-        // Save changes to file
-        saveToFile();
+        lock.writeLock().lock();
+        try {
+            // Add to collection
+            bookings.add(booking);
+            
+            // Save changes to file
+            saveToFile();
+        } finally {
+            lock.writeLock().unlock();
+        }
         
         return booking.getId();
     }
@@ -196,47 +314,138 @@ public class BookingSystem {
      * Update an existing booking
      */
     public boolean updateBooking(String bookingId, Booking updates) {
-        for (int i = 0; i < bookings.size(); i++) {
-            Booking booking = bookings.get(i);
+        lock.writeLock().lock();
+        try {
+            Booking booking = findById(bookingId);
+            if (booking == null) {
+                return false;
+            }
             
-            if (booking.getId().equals(bookingId)) {
-                // Update all non-null fields
-                if (updates.getUserId() != null) booking.setUserId(updates.getUserId());
-                if (updates.getUserName() != null) booking.setUserName(updates.getUserName());
-                if (updates.getVendorId() != null) booking.setVendorId(updates.getVendorId());
-                if (updates.getVendorName() != null) booking.setVendorName(updates.getVendorName());
-                if (updates.getServiceName() != null) booking.setServiceName(updates.getServiceName());
-                if (updates.getEventType() != null) booking.setEventType(updates.getEventType());
-                if (updates.getServiceDate() != null) booking.setServiceDate(updates.getServiceDate());
-                if (updates.getAmount() > 0) booking.setAmount(updates.getAmount());
-                if (updates.getStatus() != null) booking.setStatus(updates.getStatus());
-                if (updates.getPaymentStatus() != null) booking.setPaymentStatus(updates.getPaymentStatus());
-                if (updates.getNotes() != null) booking.setNotes(updates.getNotes());
+            applyUpdates(booking, updates, LocalDateTime.now().format(ISO_FORMAT));
+            
+            // Save changes to file
+            saveToFile();
+            
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Copy all non-null fields of updates onto booking
+     */
+    private static void applyUpdates(Booking booking, Booking updates, String now) {
+        if (updates.getUserId() != null) booking.setUserId(updates.getUserId());
+        if (updates.getUserName() != null) booking.setUserName(updates.getUserName());
+        if (updates.getVendorId() != null) booking.setVendorId(updates.getVendorId());
+        if (updates.getVendorName() != null) booking.setVendorName(updates.getVendorName());
+        if (updates.getServiceName() != null) booking.setServiceName(updates.getServiceName());
+        if (updates.getEventType() != null) booking.setEventType(updates.getEventType());
+        if (updates.getServiceDate() != null) booking.setServiceDate(updates.getServiceDate());
+        if (updates.getAmount() > 0) booking.setAmount(updates.getAmount());
+        if (updates.getStatus() != null) booking.setStatus(updates.getStatus());
+        if (updates.getPaymentStatus() != null) booking.setPaymentStatus(updates.getPaymentStatus());
+        if (updates.getNotes() != null) booking.setNotes(updates.getNotes());
+        
+        // Always update the updatedAt timestamp
+        booking.setUpdatedAt(now);
+    }
+    
+    /**
+     * Create or update a batch of bookings. Items whose id matches an existing
+     * booking are merged like updateBooking, the rest are created. The batch
+     * is applied under one write lock and the file is rewritten once.
+     * Null entries (items that could not be parsed) are reported as failures.
+     */
+    public List<BulkItemResult> bulkUpsertBookings(List<Booking> batch) {
+        List<BulkItemResult> results = new ArrayList<>(batch.size());
+        String now = LocalDateTime.now().format(ISO_FORMAT);
+        boolean changed = false;
+        
+        lock.writeLock().lock();
+        try {
+            Map<String, Booking> byId = new HashMap<>();
+            for (Booking booking : bookings) {
+                byId.put(booking.getId(), booking);
+            }
+            
+            for (int i = 0; i < batch.size(); i++) {
+                Booking item = batch.get(i);
+                if (item == null) {
+                    results.add(BulkItemResult.failed(i, null, "Item could not be parsed"));
+                    continue;
+                }
                 
-                // Always update the updatedAt timestamp
-                booking.setUpdatedAt(LocalDateTime.now().format(ISO_FORMAT));
+                Booking existing = item.getId() != null ? byId.get(item.getId()) : null;
+                if (existing != null) {
+                    applyUpdates(existing, item, now);
+                    results.add(BulkItemResult.updated(i, existing.getId()));
+                    changed = true;
+                    continue;
+                }
                 
-                // Save changes to file
-                saveToFile();
+                String error = validate(item);
+                if (error != null) {
+                    results.add(BulkItemResult.failed(i, item.getId(), error));
+                    continue;
+                }
                 
-                return true;
+                if (item.getId() == null || item.getId().isEmpty()) {
+                    item.setId("booking" + UUID.randomUUID().toString().substring(0, 8));
+                }
+                item.setCreatedAt(now);
+                item.setUpdatedAt(now);
+                bookings.add(item);
+                byId.put(item.getId(), item);
+                results.add(BulkItemResult.created(i, item.getId()));
+                changed = true;
             }
+            
+            if (changed) {
+                saveToFile();
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
         
-        return false;
+        return results;
+    }
+    
+    /**
+     * Validate a new booking before it is stored, returning an error message or null
+     */
+    private static String validate(Booking booking) {
+        if (booking.getUserId() == null || booking.getUserId().isEmpty()) {
+            return "User ID is required";
+        }
+        if (booking.getVendorId() == null || booking.getVendorId().isEmpty()) {
+            return "Vendor ID is required";
+        }
+        if (booking.getAmount() < 0) {
+            return "Amount cannot be negative";
+        }
+        return null;
     }
     
     /**
      * Delete a booking
      */
     public boolean deleteBooking(String bookingId) {
-        boolean removed = bookings.removeIf(booking -> booking.getId().equals(bookingId));
-        
-        if (removed) {
-            // Save changes to file
-            saveToFile();
+        lock.writeLock().lock();
+        try {
+            boolean removed = bookings.removeIf(booking -> booking.getId().equals(bookingId));
+            
+            if (removed) {
+                deleteCount++;
+                
+                // Save changes to file
+                saveToFile();
+            }
+            
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
         }
-        
-        return removed;
     }
 }
@@ -0,0 +1,43 @@
+package com.weddingvendor.backend;
+
+/**
+ * Outcome of a single item in a bulk create/update request
+ */
+public class BulkItemResult {
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String FAILED = "failed";
+    
+    private int index;
+    private String id;
+    private String status;
+    private String message;
+    
+    public BulkItemResult(int index, String id, String status, String message) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.message = message;
+    }
+    
+    public static BulkItemResult created(int index, String id) {
+        return new BulkItemResult(index, id, CREATED, null);
+    }
+    
+    public static BulkItemResult updated(int index, String id) {
+        return new BulkItemResult(index, id, UPDATED, null);
+    }
+    
+    public static BulkItemResult failed(int index, String id, String message) {
+        return new BulkItemResult(index, id, FAILED, message);
+    }
+    
+    public int getIndex() { return index; }
+    public String getId() { return id; }
+    public String getStatus() { return status; }
+    public String getMessage() { return message; }
+    
+    public boolean isFailed() {
+        return FAILED.equals(status);
+    }
+}
@@ -0,0 +1,77 @@
+package com.weddingvendor.backend;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Parses bulk request bodies given either as a JSON array or as NDJSON
+ * (one JSON object per line). Items that fail to parse are returned as null
+ * so the caller can report them individually instead of rejecting the batch.
+ */
+public class BulkRequestParser {
+    
+    private BulkRequestParser() {}
+    
+    /**
+     * @throws JsonParseException if the body looks like a JSON array but is not one
+     */
+    public static <T> List<T> parse(Gson gson, BufferedReader reader, Class<T> type) throws IOException {
+        List<T> items = new ArrayList<>();
+        
+        reader.mark(1);
+        int first = skipWhitespace(reader);
+        if (first == -1) {
+            return items;
+        }
+        
+        if (first == '[') {
+            reader.reset();
+            JsonArray array = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : array) {
+                items.add(parseItem(gson, element, type));
+            }
+            return items;
+        }
+        
+        reader.reset();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                items.add(gson.fromJson(line, type));
+            } catch (JsonParseException e) {
+                items.add(null);
+            }
+        }
+        return items;
+    }
+    
+    private static <T> T parseItem(Gson gson, JsonElement element, Class<T> type) {
+        try {
+            return gson.fromJson(element, type);
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Skip leading whitespace, leaving the reader marked just before the first
+     * significant character, which is returned (or -1 at end of input).
+     */
+    private static int skipWhitespace(BufferedReader reader) throws IOException {
+        int c;
+        while ((c = reader.read()) != -1 && Character.isWhitespace(c)) {
+            reader.mark(1);
+        }
+        return c;
+    }
+}
@@ -0,0 +1,37 @@
+package com.weddingvendor.backend;
+
+import java.util.List;
+
+/**
+ * Response body of the vendor and booking bulk endpoints: the outcome of
+ * every item, in request order, plus totals per outcome
+ */
+public class BulkResponse {
+    private final String status = "success";
+    private final List<BulkItemResult> data;
+    private final int created;
+    private final int updated;
+    private final int failed;
+    
+    public BulkResponse(List<BulkItemResult> results) {
+        int createdCount = 0;
+        int updatedCount = 0;
+        for (BulkItemResult result : results) {
+            if (BulkItemResult.CREATED.equals(result.getStatus())) {
+                createdCount++;
+            } else if (BulkItemResult.UPDATED.equals(result.getStatus())) {
+                updatedCount++;
+            }
+        }
+        this.data = results;
+        this.created = createdCount;
+        this.updated = updatedCount;
+        this.failed = results.size() - createdCount - updatedCount;
+    }
+    
+    public String getStatus() { return status; }
+    public List<BulkItemResult> getData() { return data; }
+    public int getCreated() { return created; }
+    public int getUpdated() { return updated; }
+    public int getFailed() { return failed; }
+}
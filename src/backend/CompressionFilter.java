@@ -0,0 +1,527 @@
+package com.weddingvendor.backend;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Filter to compress API responses (gzip or deflate) based on Accept-Encoding
+ */
+@WebFilter(urlPatterns = {"/api/*"}, asyncSupported = true)
+public class CompressionFilter implements Filter {
+    private static final int DEFAULT_THRESHOLD = 1024;
+    private static final int DEFAULT_LEVEL = 6;
+    
+    // Wire statistics across all requests seen by the filter
+    private static final LongAdder responses = new LongAdder();
+    private static final LongAdder compressedResponses = new LongAdder();
+    private static final LongAdder bodyBytes = new LongAdder();
+    private static final LongAdder wireBytes = new LongAdder();
+    private static final LongAdder compressionNanos = new LongAdder();
+    
+    private int threshold = DEFAULT_THRESHOLD;
+    private DeflaterPool gzipPool;
+    private DeflaterPool deflatePool;
+    
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        int level = DEFAULT_LEVEL;
+        if (filterConfig != null) {
+            threshold = intParam(filterConfig, "threshold", DEFAULT_THRESHOLD, 0, Integer.MAX_VALUE);
+            level = intParam(filterConfig, "level", DEFAULT_LEVEL, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION);
+        }
+        
+        int poolSize = Runtime.getRuntime().availableProcessors() * 2;
+        gzipPool = new DeflaterPool(poolSize, level, true);
+        deflatePool = new DeflaterPool(poolSize, level, false);
+    }
+    
+    private static int intParam(FilterConfig config, String name, int defaultValue, int min, int max) {
+        String value = config.getInitParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= min && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.err.println("CompressionFilter: invalid " + name + " '" + value + "', using " + defaultValue);
+        return defaultValue;
+    }
+    
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        
+        String encoding = "HEAD".equalsIgnoreCase(request.getMethod())
+            ? null
+            : negotiate(request.getHeader("Accept-Encoding"));
+        
+        if (encoding == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        
+        response.addHeader("Vary", "Accept-Encoding");
+        CompressingResponse wrapper = new CompressingResponse(response, encoding);
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            // Async responses (e.g. streams) finish when their output stream is closed
+            if (!request.isAsyncStarted()) {
+                wrapper.finish();
+            }
+        }
+    }
+    
+    /**
+     * Pick the content coding to use from an Accept-Encoding header, preferring
+     * gzip over deflate and honouring q-values (including q=0 exclusions).
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        
+        double gzipQ = -1;
+        double deflateQ = -1;
+        double anyQ = -1;
+        
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase();
+            double q = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            
+            switch (coding) {
+                case "gzip":
+                case "x-gzip":
+                    gzipQ = q;
+                    break;
+                case "deflate":
+                    deflateQ = q;
+                    break;
+                case "*":
+                    anyQ = q;
+                    break;
+                default:
+                    break;
+            }
+        }
+        
+        if (gzipQ < 0) gzipQ = anyQ;
+        if (deflateQ < 0) deflateQ = anyQ;
+        
+        if (gzipQ > 0 && gzipQ >= deflateQ) {
+            return "gzip";
+        }
+        if (deflateQ > 0) {
+            return "deflate";
+        }
+        return null;
+    }
+    
+    /**
+     * Snapshot of wire statistics: response counts, uncompressed body bytes,
+     * bytes actually written and time spent inside the compressor.
+     */
+    public static Map<String, Long> getStatistics() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        long total = responses.sum();
+        stats.put("responses", total);
+        stats.put("compressedResponses", compressedResponses.sum());
+        stats.put("bodyBytes", bodyBytes.sum());
+        stats.put("wireBytes", wireBytes.sum());
+        stats.put("compressionNanos", compressionNanos.sum());
+        stats.put("compressionNanosPerResponse", total > 0 ? compressionNanos.sum() / total : 0);
+        return stats;
+    }
+    
+    @Override
+    public void destroy() {
+        if (gzipPool != null) gzipPool.clear();
+        if (deflatePool != null) deflatePool.clear();
+    }
+    
+    /**
+     * Response wrapper that buffers the start of the body and only compresses
+     * once it grows past the threshold. Responses that already carry a
+     * Content-Encoding (e.g. pre-gzipped cache hits) pass straight through.
+     */
+    private class CompressingResponse extends HttpServletResponseWrapper {
+        private final String encoding;
+        private CompressingOutputStream stream;
+        private PrintWriter writer;
+        private boolean passThrough;
+        private long declaredLength = -1;
+        
+        CompressingResponse(HttpServletResponse response, String encoding) {
+            super(response);
+            this.encoding = encoding;
+        }
+        
+        private HttpServletResponse target() {
+            return (HttpServletResponse) getResponse();
+        }
+        
+        @Override
+        public void setHeader(String name, String value) {
+            checkContentEncoding(name);
+            target().setHeader(name, value);
+        }
+        
+        @Override
+        public void addHeader(String name, String value) {
+            checkContentEncoding(name);
+            target().addHeader(name, value);
+        }
+        
+        private void checkContentEncoding(String name) {
+            if ("Content-Encoding".equalsIgnoreCase(name) && (stream == null || !stream.isCompressing())) {
+                passThrough = true;
+            }
+        }
+        
+        @Override
+        public void setContentLength(int length) {
+            setContentLengthLong(length);
+        }
+        
+        @Override
+        public void setContentLengthLong(long length) {
+            // Only forward once we know the body is sent as-is
+            if (passThrough || (stream != null && stream.isIdentity())) {
+                target().setContentLengthLong(length);
+            } else {
+                declaredLength = length;
+            }
+        }
+        
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (passThrough) {
+                return target().getOutputStream();
+            }
+            if (stream == null) {
+                stream = new CompressingOutputStream(this);
+            }
+            return stream;
+        }
+        
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (passThrough) {
+                    return target().getWriter();
+                }
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                stream = new CompressingOutputStream(this);
+                String charset = getCharacterEncoding() != null ? getCharacterEncoding() : "UTF-8";
+                writer = new PrintWriter(new OutputStreamWriter(stream, charset));
+            }
+            return writer;
+        }
+        
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.flush();
+            }
+            // Committing the response now would fix the encoding before we know it
+            if (passThrough || (stream != null && !stream.isBuffering())) {
+                target().flushBuffer();
+            }
+        }
+        
+        @Override
+        public void resetBuffer() {
+            if (stream != null) {
+                stream.resetBuffer();
+            }
+            target().resetBuffer();
+        }
+        
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.finish();
+            }
+        }
+    }
+    
+    /**
+     * Output stream that decides between identity and compressed output on the
+     * first write past the threshold, or on finish. Flushes before then keep
+     * buffering, since the body may still grow past the threshold; only event
+     * streams, which are never compressed, are committed by an early flush.
+     */
+    private class CompressingOutputStream extends ServletOutputStream {
+        private final CompressingResponse response;
+        private byte[] buffer = new byte[threshold];
+        private int count;
+        
+        private ServletOutputStream raw;
+        private OutputStream out;
+        private DeflaterOutputStream deflaterStream;
+        private Deflater deflater;
+        private DeflaterPool pool;
+        private CRC32 crc;
+        private long bodyLength;
+        private long wireLength;
+        private boolean finished;
+        
+        CompressingOutputStream(CompressingResponse response) {
+            this.response = response;
+        }
+        
+        boolean isCompressing() {
+            return deflaterStream != null;
+        }
+        
+        boolean isIdentity() {
+            return out != null && deflaterStream == null;
+        }
+        
+        boolean isBuffering() {
+            return out == null;
+        }
+        
+        private boolean isEventStream() {
+            String contentType = response.target().getContentType();
+            return contentType != null && contentType.startsWith("text/event-stream");
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                throw new IOException("Stream already finished");
+            }
+            if (out == null) {
+                if (count + len <= buffer.length) {
+                    System.arraycopy(b, off, buffer, count, len);
+                    count += len;
+                    return;
+                }
+                commit(true);
+            }
+            writeThrough(b, off, len);
+        }
+        
+        private void commit(boolean large) throws IOException {
+            HttpServletResponse target = response.target();
+            raw = target.getOutputStream();
+            // A response committed elsewhere can no longer take a Content-Encoding
+            if (large && !response.passThrough && !isEventStream() && !target.isCommitted()) {
+                target.setHeader("Content-Encoding", response.encoding);
+                pool = "gzip".equals(response.encoding) ? gzipPool : deflatePool;
+                deflater = pool.borrow();
+                out = new CountingStream(raw);
+                if (pool == gzipPool) {
+                    crc = new CRC32();
+                    writeGzipHeader();
+                }
+                deflaterStream = new DeflaterOutputStream(out, deflater, 8192, true);
+                compressedResponses.increment();
+            } else {
+                out = new CountingStream(raw);
+                if (response.declaredLength >= 0) {
+                    target.setContentLengthLong(response.declaredLength);
+                } else if (finished && count > 0) {
+                    target.setContentLengthLong(count);
+                }
+            }
+            
+            byte[] pending = buffer;
+            int pendingCount = count;
+            buffer = null;
+            count = 0;
+            if (pendingCount > 0) {
+                writeThrough(pending, 0, pendingCount);
+            }
+        }
+        
+        private void writeThrough(byte[] b, int off, int len) throws IOException {
+            bodyLength += len;
+            if (deflaterStream != null) {
+                long start = System.nanoTime();
+                if (crc != null) {
+                    crc.update(b, off, len);
+                }
+                deflaterStream.write(b, off, len);
+                compressionNanos.add(System.nanoTime() - start);
+            } else {
+                out.write(b, off, len);
+            }
+        }
+        
+        private void writeGzipHeader() throws IOException {
+            // Magic, CM=deflate, no flags, no mtime, no extra flags, OS unknown
+            out.write(new byte[] {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff});
+        }
+        
+        private void writeGzipTrailer() throws IOException {
+            writeIntLE(out, (int) crc.getValue());
+            writeIntLE(out, (int) bodyLength);
+        }
+        
+        private void writeIntLE(OutputStream stream, int value) throws IOException {
+            stream.write(value & 0xff);
+            stream.write((value >> 8) & 0xff);
+            stream.write((value >> 16) & 0xff);
+            stream.write((value >> 24) & 0xff);
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            if (finished) {
+                return;
+            }
+            if (out == null) {
+                if (!isEventStream()) {
+                    return;
+                }
+                // Event streams need their bytes now
+                commit(false);
+            }
+            if (deflaterStream != null) {
+                long start = System.nanoTime();
+                deflaterStream.flush();
+                compressionNanos.add(System.nanoTime() - start);
+            } else {
+                out.flush();
+            }
+        }
+        
+        void resetBuffer() {
+            if (out == null) {
+                count = 0;
+            }
+        }
+        
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                if (out == null) {
+                    commit(false);
+                }
+                if (deflaterStream != null) {
+                    long start = System.nanoTime();
+                    deflaterStream.finish();
+                    if (crc != null) {
+                        writeGzipTrailer();
+                    }
+                    compressionNanos.add(System.nanoTime() - start);
+                }
+                out.flush();
+            } finally {
+                if (deflater != null) {
+                    pool.release(deflater);
+                    deflater = null;
+                }
+                responses.increment();
+                bodyBytes.add(bodyLength);
+                wireBytes.add(wireLength);
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+        
+        @Override
+        public boolean isReady() {
+            return raw == null || raw.isReady();
+        }
+        
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            try {
+                response.target().getOutputStream().setWriteListener(listener);
+            } catch (IOException e) {
+                listener.onError(e);
+            }
+        }
+        
+        /**
+         * Counts bytes that actually reach the container's stream
+         */
+        private class CountingStream extends OutputStream {
+            private final OutputStream delegate;
+            
+            CountingStream(OutputStream delegate) {
+                this.delegate = delegate;
+            }
+            
+            @Override
+            public void write(int b) throws IOException {
+                delegate.write(b);
+                wireLength++;
+            }
+            
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                delegate.write(b, off, len);
+                wireLength += len;
+            }
+            
+            @Override
+            public void flush() throws IOException {
+                delegate.flush();
+            }
+        }
+    }
+}
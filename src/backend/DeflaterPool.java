@@ -0,0 +1,56 @@
+package com.weddingvendor.backend;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Bounded pool of Deflater instances.
+ *
+ * Each Deflater owns native zlib memory that is only released by end(), so
+ * creating one per response is expensive and leaves cleanup to the GC.
+ * Instances are reset and reused; when the pool is full, returned instances
+ * are ended immediately instead of being kept.
+ */
+public class DeflaterPool {
+    private final BlockingQueue<Deflater> pool;
+    private final int level;
+    private final boolean nowrap;
+    
+    /**
+     * @param capacity maximum number of idle deflaters kept
+     * @param level compression level (0-9)
+     * @param nowrap true for raw deflate (used for gzip), false for zlib format
+     */
+    public DeflaterPool(int capacity, int level, boolean nowrap) {
+        this.pool = new ArrayBlockingQueue<>(capacity);
+        this.level = level;
+        this.nowrap = nowrap;
+    }
+    
+    public Deflater borrow() {
+        Deflater deflater = pool.poll();
+        return deflater != null ? deflater : new Deflater(level, nowrap);
+    }
+    
+    public void release(Deflater deflater) {
+        deflater.reset();
+        if (!pool.offer(deflater)) {
+            deflater.end();
+        }
+    }
+    
+    public int idleCount() {
+        return pool.size();
+    }
+    
+    /**
+     * End all idle deflaters, e.g. when the owning filter is destroyed
+     */
+    public void clear() {
+        Deflater deflater;
+        while ((deflater = pool.poll()) != null) {
+            deflater.end();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.weddingvendor.backend;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Session store that survives restarts.
+ *
+ * Sessions are held in an InMemorySessionStore and every change is
+ * appended to a log file, one tab-separated record per line:
+ * {@code C token userId expiresAt} for a created session, {@code D token}
+ * for one that was invalidated or expired, and {@code U userId} for
+ * invalidateAll. On startup the log is replayed, expired sessions are
+ * dropped and the log is rewritten with just the live ones.
+ *
+ * The log holds live session tokens and must be protected like a password file.
+ */
+public class FileSessionStore implements SessionStore {
+    private final InMemorySessionStore sessions;
+    private final File logFile;
+    private BufferedWriter log;
+    
+    public FileSessionStore(File logFile) {
+        this.logFile = logFile;
+        this.sessions = new InMemorySessionStore();
+        replay();
+        sessions.setExpiryListener(token -> append("D\t" + token));
+    }
+    
+    // Writes change the in-memory store and append their record under the
+    // store's lock, so the log holds records in the order the changes happened
+    // and a replay cannot resurrect an invalidated session.
+    @Override
+    public synchronized String createSession(String userId, long ttlMillis) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        String token = sessions.createSessionUntil(userId, expiresAt);
+        append("C\t" + token + "\t" + userId + "\t" + expiresAt);
+        return token;
+    }
+    
+    @Override
+    public String getUserId(String token) {
+        return sessions.getUserId(token);
+    }
+    
+    @Override
+    public synchronized void invalidate(String token) {
+        if (sessions.isValid(token)) {
+            sessions.invalidate(token);
+            append("D\t" + token);
+        }
+    }
+    
+    @Override
+    public synchronized int invalidateAll(String userId) {
+        int removed = sessions.invalidateAll(userId);
+        if (removed > 0) {
+            append("U\t" + userId);
+        }
+        return removed;
+    }
+    
+    @Override
+    public int size() {
+        return sessions.size();
+    }
+    
+    @Override
+    public synchronized void close() {
+        sessions.close();
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("Error closing session log: " + e.getMessage());
+            }
+            log = null;
+        }
+    }
+    
+    private synchronized void append(String record) {
+        try {
+            if (log == null) {
+                File dir = logFile.getParentFile();
+                if (dir != null && !dir.exists()) {
+                    dir.mkdirs();
+                }
+                log = new BufferedWriter(new FileWriter(logFile, true));
+            }
+            log.write(record);
+            log.newLine();
+            log.flush();
+        } catch (IOException e) {
+            System.err.println("Error appending to session log: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Rebuild the live sessions from the log, then compact it
+     */
+    private void replay() {
+        if (!logFile.exists()) {
+            return;
+        }
+        
+        // token -> {userId, expiresAt}
+        Map<String, String[]> live = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(logFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields[0].equals("C") && fields.length == 4) {
+                    live.put(fields[1], new String[] { fields[2], fields[3] });
+                } else if (fields[0].equals("D") && fields.length == 2) {
+                    live.remove(fields[1]);
+                } else if (fields[0].equals("U") && fields.length == 2) {
+                    live.values().removeIf(session -> session[0].equals(fields[1]));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading session log: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, String[]> entry : live.entrySet()) {
+            try {
+                long expiresAt = Long.parseLong(entry.getValue()[1]);
+                if (expiresAt > now) {
+                    sessions.restore(entry.getKey(), entry.getValue()[0], expiresAt);
+                }
+            } catch (NumberFormatException e) {
+                // Torn record from a crash mid-write
+            }
+        }
+        compact();
+        System.out.println("Restored " + sessions.size() + " sessions from " + logFile);
+    }
+    
+    private void compact() {
+        File temp = new File(logFile.getPath() + ".tmp");
+        try {
+            StringBuilder records = new StringBuilder();
+            sessions.forEachSession((token, userId, expiresAt) ->
+                records.append("C\t").append(token).append('\t').append(userId).append('\t').append(expiresAt).append('\n'));
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp))) {
+                writer.write(records.toString());
+            }
+            Files.move(temp.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error compacting session log: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.weddingvendor.backend;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sharded in-memory session store with a hashed timing wheel for expiry.
+ *
+ * Sessions are sharded by user, and the shard number is embedded in the
+ * token, so a lookup goes straight to one shard and all of a user's
+ * sessions sit together in that shard's per-user index. invalidateAll is
+ * therefore proportional to that user's sessions rather than to every
+ * session in the store. Each shard has its own lock.
+ *
+ * Every shard also keeps its sessions on a timing wheel: an array of slots,
+ * one per tick, where each session is linked into the slot of its expiry
+ * tick. Adding and removing a session is O(1), and a background sweep only
+ * visits the slots whose tick has passed. Sessions living longer than one
+ * rotation stay in their slot and are skipped until their time comes round.
+ */
+public class InMemorySessionStore implements SessionStore {
+    private static final int DEFAULT_SHARDS = 16;
+    private static final int WHEEL_SLOTS = 512;
+    private static final long DEFAULT_TICK_MILLIS = 1000;
+    
+    private final Shard[] shards;
+    private final long tickMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final ScheduledExecutorService expiryTimer;
+    private ExpiryListener expiryListener;
+    
+    public InMemorySessionStore() {
+        this(DEFAULT_SHARDS, DEFAULT_TICK_MILLIS);
+    }
+    
+    public InMemorySessionStore(int shardCount, long tickMillis) {
+        this.tickMillis = tickMillis;
+        this.shards = new Shard[shardCount];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(now / tickMillis - 1);
+        }
+        
+        this.expiryTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiryTimer.scheduleAtFixedRate(this::expireSessions, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Called for each session removed by expiry, e.g. to persist the removal
+     */
+    interface ExpiryListener {
+        void sessionExpired(String token);
+    }
+    
+    void setExpiryListener(ExpiryListener expiryListener) {
+        this.expiryListener = expiryListener;
+    }
+    
+    @Override
+    public String createSession(String userId, long ttlMillis) {
+        return createSessionUntil(userId, System.currentTimeMillis() + ttlMillis);
+    }
+    
+    String createSessionUntil(String userId, long expiresAt) {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String token = Integer.toHexString(shardFor(userId)) + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        restore(token, userId, expiresAt);
+        return token;
+    }
+    
+    /**
+     * Add a session with a known token and expiry, as when reloading persisted sessions
+     */
+    void restore(String token, String userId, long expiresAt) {
+        Shard shard = shards[shardFor(userId)];
+        shard.lock.lock();
+        try {
+            shard.add(new Entry(token, userId, expiresAt), tickMillis);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+    
+    @Override
+    public String getUserId(String token) {
+        Shard shard = shardOf(token);
+        if (shard == null) {
+            return null;
+        }
+        shard.lock.lock();
+        try {
+            Entry entry = shard.byToken.get(token);
+            if (entry == null) {
+                return null;
+            }
+            // The wheel may not have reached this session's tick yet
+            return entry.expiresAt > System.currentTimeMillis() ? entry.userId : null;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+    
+    @Override
+    public void invalidate(String token) {
+        Shard shard = shardOf(token);
+        if (shard == null) {
+            return;
+        }
+        shard.lock.lock();
+        try {
+            Entry entry = shard.byToken.get(token);
+            if (entry != null) {
+                shard.remove(entry);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+    
+    @Override
+    public int invalidateAll(String userId) {
+        Shard shard = shards[shardFor(userId)];
+        shard.lock.lock();
+        try {
+            Set<Entry> sessions = shard.byUser.get(userId);
+            if (sessions == null) {
+                return 0;
+            }
+            List<Entry> removed = new ArrayList<>(sessions);
+            for (Entry entry : removed) {
+                shard.remove(entry);
+            }
+            return removed.size();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+    
+    @Override
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                size += shard.byToken.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    }
+    
+    interface SessionVisitor {
+        void visit(String token, String userId, long expiresAt);
+    }
+    
+    /**
+     * Visit every live session, e.g. to persist them. Each shard is locked while it is visited.
+     */
+    void forEachSession(SessionVisitor visitor) {
+        long now = System.currentTimeMillis();
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                for (Entry entry : shard.byToken.values()) {
+                    if (entry.expiresAt > now) {
+                        visitor.visit(entry.token, entry.userId, entry.expiresAt);
+                    }
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Advance every shard's wheel to the current tick, removing expired sessions
+     */
+    void expireSessions() {
+        long now = System.currentTimeMillis();
+        for (Shard shard : shards) {
+            List<String> expired;
+            shard.lock.lock();
+            try {
+                expired = shard.advance(now, tickMillis);
+            } finally {
+                shard.lock.unlock();
+            }
+            ExpiryListener listener = expiryListener;
+            if (listener != null) {
+                for (String token : expired) {
+                    listener.sessionExpired(token);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        expiryTimer.shutdownNow();
+    }
+    
+    private int shardFor(String userId) {
+        return (userId.hashCode() & 0x7fffffff) % shards.length;
+    }
+    
+    private Shard shardOf(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot > 8) {
+            return null;
+        }
+        try {
+            int index = Integer.parseInt(token.substring(0, dot), 16);
+            return index < shards.length ? shards[index] : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    private static class Entry {
+        final String token;
+        final String userId;
+        final long expiresAt;
+        // Links within the entry's wheel slot
+        Entry prev;
+        Entry next;
+        int slot;
+        
+        Entry(String token, String userId, long expiresAt) {
+            this.token = token;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    private static class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, Entry> byToken = new HashMap<>();
+        final Map<String, Set<Entry>> byUser = new HashMap<>();
+        final Entry[] wheel = new Entry[WHEEL_SLOTS];
+        // Last tick whose slot has been swept
+        long lastTick;
+        
+        Shard(long lastTick) {
+            this.lastTick = lastTick;
+        }
+        
+        void add(Entry entry, long tickMillis) {
+            Entry existing = byToken.put(entry.token, entry);
+            if (existing != null) {
+                unlink(existing);
+                removeFromUser(existing);
+            }
+            byUser.computeIfAbsent(entry.userId, k -> new LinkedHashSet<>()).add(entry);
+            
+            // Never place an entry in a slot the sweep has already passed this rotation
+            long tick = Math.max(entry.expiresAt / tickMillis, lastTick + 1);
+            entry.slot = (int) (tick % WHEEL_SLOTS);
+            entry.next = wheel[entry.slot];
+            if (entry.next != null) {
+                entry.next.prev = entry;
+            }
+            wheel[entry.slot] = entry;
+        }
+        
+        void remove(Entry entry) {
+            byToken.remove(entry.token);
+            removeFromUser(entry);
+            unlink(entry);
+        }
+        
+        private void removeFromUser(Entry entry) {
+            Set<Entry> sessions = byUser.get(entry.userId);
+            if (sessions != null) {
+                sessions.remove(entry);
+                if (sessions.isEmpty()) {
+                    byUser.remove(entry.userId);
+                }
+            }
+        }
+        
+        private void unlink(Entry entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else if (wheel[entry.slot] == entry) {
+                wheel[entry.slot] = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+        }
+        
+        /**
+         * Visit the slots of every tick that has fully passed since the last
+         * sweep. If the sweep fell more than a full rotation behind, each
+         * slot is visited once.
+         */
+        List<String> advance(long now, long tickMillis) {
+            List<String> expired = new ArrayList<>();
+            long completedTick = now / tickMillis - 1;
+            long ticks = Math.min(completedTick - lastTick, WHEEL_SLOTS);
+            for (long i = 1; i <= ticks; i++) {
+                int slot = (int) ((lastTick + i) % WHEEL_SLOTS);
+                Entry entry = wheel[slot];
+                while (entry != null) {
+                    Entry next = entry.next;
+                    if (entry.expiresAt <= now) {
+                        remove(entry);
+                        expired.add(entry.token);
+                    }
+                    entry = next;
+                }
+            }
+            lastTick = Math.max(lastTick, completedTick);
+            return expired;
+        }
+    }
+}
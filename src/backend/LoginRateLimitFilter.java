@@ -0,0 +1,68 @@
+package com.weddingvendor.backend;
+
+import java.io.IOException;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import com.weddingvendor.security.LoginRateLimiter;
+
+/**
+ * Filter to rate limit login attempts per client IP before the request body
+ * is read. Per-email limits are applied by the auth servlets once the email
+ * has been parsed. Both share LoginRateLimiter's process-wide instance with
+ * the Spring AuthController.
+ *
+ * The client IP is the remote address; X-Forwarded-For is not trusted since
+ * any client can set it.
+ */
+@WebFilter(urlPatterns = {"/api/auth/*"}, asyncSupported = true)
+public class LoginRateLimitFilter implements Filter {
+    private final LoginRateLimiter limiter = LoginRateLimiter.getShared();
+    
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        
+        String pathInfo = request.getPathInfo();
+        if ("POST".equals(request.getMethod()) && pathInfo != null && pathInfo.endsWith("/login")) {
+            long waitMillis = limiter.tryAcquireIp(request.getRemoteAddr());
+            if (waitMillis > 0) {
+                rejectTooManyAttempts(response, waitMillis);
+                return;
+            }
+        }
+        
+        chain.doFilter(request, response);
+    }
+    
+    /**
+     * Answer 429 with a Retry-After header, in the auth servlets' JSON shape
+     */
+    private void rejectTooManyAttempts(HttpServletResponse response, long waitMillis) throws IOException {
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(LoginRateLimiter.toRetryAfterSeconds(waitMillis)));
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().print("{\"success\":false,\"message\":\"Too many login attempts, please retry later\"}");
+        response.getWriter().flush();
+    }
+    
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // No configuration needed
+    }
+    
+    @Override
+    public void destroy() {
+        // No resources to release
+    }
+}
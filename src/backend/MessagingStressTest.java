@@ -0,0 +1,115 @@
+package com.weddingvendor.backend;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent stress test of MessagingService.
+ *
+ * Worker threads (one per core by default) send messages into a shared set
+ * of small group threads as fast as they can, while a reader thread keeps
+ * listing messages, counting unread and marking threads read. Afterwards
+ * every thread's log is checked: it must hold exactly the messages sent to
+ * it, numbered 1..n with no gaps or nulls, and each participant's unread
+ * count must match their watermark. Exits with status 1 on any mismatch.
+ * Run with
+ * {@code java com.weddingvendor.backend.MessagingStressTest [seconds] [threads] [conversations]}.
+ * Compiled together with WeddingVendorSystem, whose messaging classes it uses.
+ */
+public class MessagingStressTest {
+    
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int conversations = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        
+        MessagingService service = new MessagingService();
+        List<String> threadIds = new ArrayList<>();
+        Map<String, String[]> participants = new HashMap<>();
+        for (int i = 0; i < conversations; i++) {
+            // A client, a vendor and a planner per conversation, with users shared across conversations
+            String[] members = { "client" + (i % 16), "vendor" + i, "planner" + (i % 4) };
+            String threadId = service.createThread(members);
+            threadIds.add(threadId);
+            participants.put(threadId, members);
+        }
+        
+        Map<String, LongAdder> sent = new HashMap<>();
+        for (String threadId : threadIds) {
+            sent.put(threadId, new LongAdder());
+        }
+        
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(workers + 1);
+        for (int w = 0; w < workers; w++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    String threadId = threadIds.get(random.nextInt(threadIds.size()));
+                    String[] members = participants.get(threadId);
+                    service.sendMessage(threadId, members[random.nextInt(members.length)], "Quote for the reception venue");
+                    sent.get(threadId).increment();
+                }
+                done.countDown();
+            }, "sender-" + w).start();
+        }
+        new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                String threadId = threadIds.get(random.nextInt(threadIds.size()));
+                String user = participants.get(threadId)[0];
+                service.getThreadMessages(threadId).size();
+                service.getUnreadCount(user);
+                service.getInboxSummary(user);
+                service.markThreadAsRead(threadId, user);
+            }
+            done.countDown();
+        }, "reader").start();
+        done.await();
+        
+        long total = 0;
+        int errors = 0;
+        for (String threadId : threadIds) {
+            long expected = sent.get(threadId).sum();
+            total += expected;
+            List<Message> messages = service.getThreadMessages(threadId);
+            if (messages.size() != expected) {
+                System.out.println(threadId + ": expected " + expected + " messages, found " + messages.size());
+                errors++;
+            }
+            for (int i = 0; i < messages.size(); i++) {
+                Message message = messages.get(i);
+                if (message == null || message.getSequence() != i + 1) {
+                    System.out.println(threadId + ": bad message at position " + (i + 1));
+                    errors++;
+                    break;
+                }
+            }
+        }
+        
+        Map<String, Integer> expectedUnread = new HashMap<>();
+        for (String threadId : threadIds) {
+            for (String user : participants.get(threadId)) {
+                expectedUnread.merge(user, service.getUnreadCount(user, threadId), Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : expectedUnread.entrySet()) {
+            int counted = service.getUnreadCount(entry.getKey());
+            if (counted != entry.getValue()) {
+                System.out.println(entry.getKey() + ": unread counter " + counted + ", watermarks say " + entry.getValue());
+                errors++;
+            }
+        }
+        
+        System.out.printf("%,d messages in %ds from %d threads: %,.0f sends/s, %d errors%n",
+            total, seconds, workers, total / (double) seconds, errors);
+        if (errors > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.weddingvendor.backend;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Filter to record latency, in-flight count, response size and status code
+ * for every API request. Results are published at /api/metrics.
+ */
+@WebFilter(urlPatterns = {"/api/*"}, asyncSupported = true)
+public class MetricsFilter implements Filter {
+    
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        
+        MetricsRegistry.EndpointMetrics metrics = MetricsRegistry.forRequest(
+            request.getMethod(), request.getServletPath(), request.getPathInfo());
+        CountingResponse counting = new CountingResponse(response);
+        long start = System.nanoTime();
+        metrics.requestStarted();
+        
+        boolean async = false;
+        try {
+            chain.doFilter(request, counting);
+            if (request.isAsyncStarted()) {
+                // Long-lived responses are recorded when they complete
+                async = true;
+                request.getAsyncContext().addListener(new RecordingListener(metrics, counting, start));
+            }
+        } finally {
+            if (!async) {
+                counting.flushWriter();
+                metrics.requestFinished(System.nanoTime() - start, counting.getByteCount(), counting.getStatus());
+            }
+        }
+    }
+    
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // No configuration needed
+    }
+    
+    @Override
+    public void destroy() {
+        // Nothing to clean up
+    }
+    
+    /**
+     * Records an asynchronous request once it completes, times out or fails
+     */
+    private static class RecordingListener implements AsyncListener {
+        private final MetricsRegistry.EndpointMetrics metrics;
+        private final CountingResponse response;
+        private final long start;
+        private boolean recorded;
+        
+        RecordingListener(MetricsRegistry.EndpointMetrics metrics, CountingResponse response, long start) {
+            this.metrics = metrics;
+            this.response = response;
+            this.start = start;
+        }
+        
+        private synchronized void record() {
+            if (!recorded) {
+                recorded = true;
+                metrics.requestFinished(System.nanoTime() - start, response.getByteCount(), response.getStatus());
+            }
+        }
+        
+        @Override
+        public void onComplete(AsyncEvent event) { record(); }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) { record(); }
+        
+        @Override
+        public void onError(AsyncEvent event) { record(); }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Listener stays registered for the restarted cycle
+        }
+    }
+    
+    /**
+     * Response wrapper that counts body bytes handed to the container
+     */
+    private static class CountingResponse extends HttpServletResponseWrapper {
+        private CountingOutputStream stream;
+        private PrintWriter writer;
+        
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+        
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (stream == null) {
+                stream = new CountingOutputStream(getResponse().getOutputStream());
+            }
+            return stream;
+        }
+        
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                stream = new CountingOutputStream(getResponse().getOutputStream());
+                String charset = getCharacterEncoding() != null ? getCharacterEncoding() : "UTF-8";
+                writer = new PrintWriter(new OutputStreamWriter(stream, charset));
+            }
+            return writer;
+        }
+        
+        @Override
+        public void flushBuffer() throws IOException {
+            flushWriter();
+            super.flushBuffer();
+        }
+        
+        void flushWriter() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+        
+        long getByteCount() {
+            return stream != null ? stream.count.sum() : 0;
+        }
+    }
+    
+    private static class CountingOutputStream extends ServletOutputStream {
+        private final ServletOutputStream delegate;
+        // Async writers may report from a container thread, so keep the count thread-safe
+        private final LongAdder count = new LongAdder();
+        
+        CountingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count.increment();
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count.add(len);
+        }
+        
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+        
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+        
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+        
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            delegate.setWriteListener(listener);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.weddingvendor.backend;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide request metrics, one entry per method, servlet and path pattern.
+ *
+ * Path patterns replace id-like segments (any segment containing a digit)
+ * with {id} so that /api/vendors/vendor1 and /api/vendors/vendor2 share one
+ * entry. The number of entries is capped to guard against unbounded label
+ * cardinality; anything past the cap is folded into a single "other" entry.
+ */
+public class MetricsRegistry {
+    private static final int MAX_ENDPOINTS = 500;
+    
+    private static final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private static final EndpointMetrics overflow = new EndpointMetrics("OTHER", "other", "other");
+    
+    private MetricsRegistry() {}
+    
+    public static EndpointMetrics forRequest(String method, String servletPath, String pathInfo) {
+        String servlet = servletPath != null && !servletPath.isEmpty() ? servletPath : "/";
+        String pattern = servlet + normalizePath(pathInfo);
+        String key = method + ' ' + pattern;
+        
+        EndpointMetrics metrics = endpoints.get(key);
+        if (metrics != null) {
+            return metrics;
+        }
+        if (endpoints.size() >= MAX_ENDPOINTS) {
+            return overflow;
+        }
+        return endpoints.computeIfAbsent(key, k -> new EndpointMetrics(method, servlet, pattern));
+    }
+    
+    /**
+     * Replace id-like path segments with {id}
+     */
+    static String normalizePath(String pathInfo) {
+        if (pathInfo == null || pathInfo.isEmpty() || pathInfo.equals("/")) {
+            return "";
+        }
+        
+        StringBuilder pattern = new StringBuilder(pathInfo.length());
+        for (String segment : pathInfo.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            pattern.append('/');
+            if (containsDigit(segment)) {
+                pattern.append("{id}");
+            } else {
+                pattern.append(segment);
+            }
+        }
+        return pattern.toString();
+    }
+    
+    private static boolean containsDigit(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (Character.isDigit(segment.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public static Iterable<EndpointMetrics> getEndpoints() {
+        if (overflow.getLatencyMicros().getCount() == 0) {
+            return endpoints.values();
+        }
+        List<EndpointMetrics> all = new ArrayList<>(endpoints.values());
+        all.add(overflow);
+        return all;
+    }
+    
+    /**
+     * Metrics for one endpoint. All recorders are lock-free.
+     */
+    public static class EndpointMetrics {
+        private final String method;
+        private final String servlet;
+        private final String path;
+        private final LogLinearHistogram latencyMicros = new LogLinearHistogram();
+        private final LogLinearHistogram responseBytes = new LogLinearHistogram();
+        private final LongAdder inFlight = new LongAdder();
+        private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        
+        EndpointMetrics(String method, String servlet, String path) {
+            this.method = method;
+            this.servlet = servlet;
+            this.path = path;
+        }
+        
+        public void requestStarted() {
+            inFlight.increment();
+        }
+        
+        public void requestFinished(long latencyNanos, long bytes, int status) {
+            inFlight.decrement();
+            latencyMicros.record(latencyNanos / 1000);
+            responseBytes.record(bytes);
+            statusCounts.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+        
+        public String getMethod() { return method; }
+        public String getServlet() { return servlet; }
+        public String getPath() { return path; }
+        public LogLinearHistogram getLatencyMicros() { return latencyMicros; }
+        public LogLinearHistogram getResponseBytes() { return responseBytes; }
+        public long getInFlight() { return inFlight.sum(); }
+        public Map<Integer, LongAdder> getStatusCounts() { return statusCounts; }
+    }
+}
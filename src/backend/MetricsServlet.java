@@ -0,0 +1,110 @@
+package com.weddingvendor.backend;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Servlet exposing request metrics in Prometheus text format
+ */
+@WebServlet("/api/metrics")
+public class MetricsServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    
+    /**
+     * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse response)
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("text/plain; version=0.0.4");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        
+        StringBuilder out = new StringBuilder(8192);
+        Iterable<MetricsRegistry.EndpointMetrics> endpoints = MetricsRegistry.getEndpoints();
+        
+        out.append("# HELP http_server_request_duration_seconds Request latency by endpoint\n");
+        out.append("# TYPE http_server_request_duration_seconds summary\n");
+        for (MetricsRegistry.EndpointMetrics metrics : endpoints) {
+            String labels = labels(metrics);
+            LogLinearHistogram latency = metrics.getLatencyMicros();
+            for (double quantile : QUANTILES) {
+                out.append("http_server_request_duration_seconds{").append(labels)
+                   .append(",quantile=\"").append(quantile).append("\"} ")
+                   .append(latency.getValueAtQuantile(quantile) / 1_000_000.0).append('\n');
+            }
+            out.append("http_server_request_duration_seconds_count{").append(labels).append("} ")
+               .append(latency.getCount()).append('\n');
+            out.append("http_server_request_duration_seconds_sum{").append(labels).append("} ")
+               .append(latency.getSum() / 1_000_000.0).append('\n');
+        }
+        
+        out.append("# HELP http_server_response_size_bytes Response body size by endpoint\n");
+        out.append("# TYPE http_server_response_size_bytes summary\n");
+        for (MetricsRegistry.EndpointMetrics metrics : endpoints) {
+            String labels = labels(metrics);
+            LogLinearHistogram sizes = metrics.getResponseBytes();
+            for (double quantile : QUANTILES) {
+                out.append("http_server_response_size_bytes{").append(labels)
+                   .append(",quantile=\"").append(quantile).append("\"} ")
+                   .append(sizes.getValueAtQuantile(quantile)).append('\n');
+            }
+            out.append("http_server_response_size_bytes_count{").append(labels).append("} ")
+               .append(sizes.getCount()).append('\n');
+            out.append("http_server_response_size_bytes_sum{").append(labels).append("} ")
+               .append(sizes.getSum()).append('\n');
+        }
+        
+        out.append("# HELP http_server_requests_in_flight Requests currently being processed\n");
+        out.append("# TYPE http_server_requests_in_flight gauge\n");
+        for (MetricsRegistry.EndpointMetrics metrics : endpoints) {
+            out.append("http_server_requests_in_flight{").append(labels(metrics)).append("} ")
+               .append(metrics.getInFlight()).append('\n');
+        }
+        
+        out.append("# HELP http_server_responses_total Responses by endpoint and status code\n");
+        out.append("# TYPE http_server_responses_total counter\n");
+        for (MetricsRegistry.EndpointMetrics metrics : endpoints) {
+            String labels = labels(metrics);
+            for (Map.Entry<Integer, LongAdder> entry : metrics.getStatusCounts().entrySet()) {
+                out.append("http_server_responses_total{").append(labels)
+                   .append(",status=\"").append(entry.getKey()).append("\"} ")
+                   .append(entry.getValue().sum()).append('\n');
+            }
+        }
+        
+        Map<String, Long> compression = CompressionFilter.getStatistics();
+        // The per-response average is a ratio, not a counter, so it gets its own gauge
+        Long nanosPerResponse = compression.remove("compressionNanosPerResponse");
+        out.append("# HELP http_server_compression Response compression statistics\n");
+        out.append("# TYPE http_server_compression counter\n");
+        for (Map.Entry<String, Long> entry : compression.entrySet()) {
+            out.append("http_server_compression{stat=\"").append(entry.getKey()).append("\"} ")
+               .append(entry.getValue()).append('\n');
+        }
+        out.append("# HELP http_server_compression_nanos_per_response Average time spent compressing per response\n");
+        out.append("# TYPE http_server_compression_nanos_per_response gauge\n");
+        out.append("http_server_compression_nanos_per_response ")
+           .append(nanosPerResponse != null ? nanosPerResponse : 0).append('\n');
+        
+        PrintWriter writer = response.getWriter();
+        writer.print(out);
+        writer.flush();
+    }
+    
+    private static String labels(MetricsRegistry.EndpointMetrics metrics) {
+        return "method=\"" + escape(metrics.getMethod()) + "\",servlet=\"" + escape(metrics.getServlet())
+            + "\",path=\"" + escape(metrics.getPath()) + "\"";
+    }
+    
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
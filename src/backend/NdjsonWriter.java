@@ -0,0 +1,66 @@
+package com.weddingvendor.backend;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+
+/**
+ * Writes records as newline-delimited JSON, one compact object per line.
+ *
+ * Records are serialized straight into the underlying writer, so nothing
+ * larger than a single record is ever buffered here. The writer is flushed
+ * every flushInterval records so clients can start consuming a long export
+ * before it finishes without paying for a network flush per record.
+ */
+public class NdjsonWriter<T> implements RecordSink<T> {
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+    
+    // Pretty printing would break the one-record-per-line framing
+    private static final Gson gson = new Gson();
+    
+    private final Writer writer;
+    private final int flushInterval;
+    private long count;
+    
+    public NdjsonWriter(Writer writer, int flushInterval) {
+        this.writer = writer;
+        this.flushInterval = flushInterval;
+    }
+    
+    @Override
+    public void accept(T record) throws IOException {
+        try {
+            gson.toJson(record, writer);
+        } catch (JsonIOException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        writer.write('\n');
+        
+        count++;
+        if (count % flushInterval == 0) {
+            flush();
+        }
+    }
+    
+    private void flush() throws IOException {
+        writer.flush();
+        // PrintWriter (as returned by the servlet response) swallows write
+        // errors, so check for them to stop exporting to a closed connection
+        if (writer instanceof PrintWriter && ((PrintWriter) writer).checkError()) {
+            throw new IOException("Error writing to client");
+        }
+    }
+    
+    /**
+     * Flush any records written since the last batch
+     */
+    public void finish() throws IOException {
+        flush();
+    }
+    
+    public long getCount() {
+        return count;
+    }
+}
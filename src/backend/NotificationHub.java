@@ -0,0 +1,108 @@
+package com.weddingvendor.backend;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process publish/subscribe hub for pushing events to connected users.
+ *
+ * Subscribers register under a user id and receive every event published
+ * for that user. Publishing never blocks on a subscriber: each one buffers
+ * what it is given, and a subscriber that reports its buffer full is
+ * treated as too slow, dropped and closed. Clients are expected to
+ * reconnect and catch up from the regular notification endpoints.
+ */
+public class NotificationHub {
+    private static final NotificationHub instance = new NotificationHub();
+    
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    
+    public static NotificationHub getInstance() {
+        return instance;
+    }
+    
+    /**
+     * A connected client
+     */
+    public interface Subscriber {
+        
+        /**
+         * Queue an event without blocking. Returns false if the subscriber
+         * cannot keep up, in which case the hub drops it.
+         */
+        boolean offer(String event);
+        
+        void close();
+    }
+    
+    public void subscribe(String userId, Subscriber subscriber) {
+        subscribers.compute(userId, (id, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            if (set.add(subscriber)) {
+                subscriberCount.incrementAndGet();
+            }
+            return set;
+        });
+    }
+    
+    public void unsubscribe(String userId, Subscriber subscriber) {
+        subscribers.computeIfPresent(userId, (id, set) -> {
+            if (set.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+    
+    public boolean hasSubscribers(String userId) {
+        return subscribers.containsKey(userId);
+    }
+    
+    /**
+     * Send an event to every subscriber of the user, returning how many accepted it
+     */
+    public int publish(String userId, String event) {
+        published.increment();
+        Set<Subscriber> set = subscribers.get(userId);
+        if (set == null) {
+            return 0;
+        }
+        
+        int accepted = 0;
+        for (Subscriber subscriber : set) {
+            if (subscriber.offer(event)) {
+                accepted++;
+            } else {
+                dropped.increment();
+                unsubscribe(userId, subscriber);
+                subscriber.close();
+            }
+        }
+        delivered.add(accepted);
+        return accepted;
+    }
+    
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", subscribers.size());
+        stats.put("subscribers", subscriberCount.get());
+        stats.put("published", published.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("droppedSlowSubscribers", dropped.sum());
+        return stats;
+    }
+}
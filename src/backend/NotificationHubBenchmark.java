@@ -0,0 +1,110 @@
+package com.weddingvendor.backend;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test of NotificationHub with many idle subscribers on one node.
+ *
+ * Registers 10k subscribers (one per user, as connected browser tabs would
+ * be), reports the memory they cost, then publishes to random users from
+ * several threads and reports throughput and publish latency. Finally a
+ * batch of subscribers that never read is flooded to confirm they are
+ * dropped once their buffers fill instead of slowing publishers down.
+ * Subscribers buffer like NotificationStreamServlet's connections do, but
+ * no sockets are involved. Run with
+ * {@code java com.weddingvendor.backend.NotificationHubBenchmark [subscribers] [seconds]}.
+ */
+public class NotificationHubBenchmark {
+    private static final int QUEUE_CAPACITY = 64;
+    
+    public static void main(String[] args) throws InterruptedException {
+        int subscriberCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        NotificationHub hub = new NotificationHub();
+        
+        long before = usedMemory();
+        for (int i = 0; i < subscriberCount; i++) {
+            hub.subscribe("user" + i, new BufferedSubscriber(true));
+        }
+        long after = usedMemory();
+        System.out.printf("%,d idle subscribers: %,d KB (%,d bytes each, excluding socket buffers)%n",
+            subscriberCount, (after - before) / 1024, (after - before) / subscriberCount);
+        
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        LogLinearHistogram latencyNanos = new LogLinearHistogram();
+        LongAdder published = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        String event = "{\"id\":\"n1\",\"title\":\"Booking Confirmed\",\"message\":\"Your booking has been confirmed.\"}";
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    String userId = "user" + random.nextInt(subscriberCount);
+                    long start = System.nanoTime();
+                    hub.publish(userId, event);
+                    latencyNanos.record(System.nanoTime() - start);
+                    published.increment();
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        System.out.printf("publish: %,.0f events/s from %d threads, p50 %.1fus, p99 %.1fus, p99.9 %.1fus%n",
+            published.sum() / (double) seconds, threads,
+            latencyNanos.getValueAtQuantile(0.5) / 1000.0,
+            latencyNanos.getValueAtQuantile(0.99) / 1000.0,
+            latencyNanos.getValueAtQuantile(0.999) / 1000.0);
+        
+        int slow = 100;
+        for (int i = 0; i < slow; i++) {
+            hub.subscribe("slow" + i, new BufferedSubscriber(false));
+        }
+        for (int n = 0; n < QUEUE_CAPACITY * 2; n++) {
+            for (int i = 0; i < slow; i++) {
+                hub.publish("slow" + i, event);
+            }
+        }
+        System.out.println("after flooding " + slow + " non-reading subscribers: " + hub.getStatistics());
+    }
+    
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
+    /**
+     * Buffers events like a stream connection; a reading subscriber hands
+     * them straight on, a non-reading one only fills its buffer.
+     */
+    private static class BufferedSubscriber implements NotificationHub.Subscriber {
+        private final ArrayBlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final boolean reading;
+        
+        BufferedSubscriber(boolean reading) {
+            this.reading = reading;
+        }
+        
+        @Override
+        public boolean offer(String event) {
+            if (!queue.offer(event)) {
+                return false;
+            }
+            if (reading) {
+                queue.poll();
+            }
+            return true;
+        }
+        
+        @Override
+        public void close() {
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.weddingvendor.backend;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Servlet streaming a user's new notifications as Server-Sent Events, so the
+ * frontend no longer has to poll for them.
+ *
+ * Each connection is an async request subscribed to NotificationHub, so idle
+ * connections hold no threads. Events are written with non-blocking I/O from
+ * a small per-connection queue; a client that falls more than QUEUE_CAPACITY
+ * events behind is disconnected and will reconnect (EventSource does so
+ * automatically) and reload its unread notifications. A comment line is
+ * sent every HEARTBEAT_SECONDS to keep proxies from closing idle streams and
+ * to detect dead clients.
+ *
+ * The user is identified the same ways as by the auth endpoints: a signed
+ * token, a token from AuthenticationServlet's session store when it runs in
+ * session mode, or the servlet session set up by UserAuthServlet.
+ */
+@WebServlet(urlPatterns = {"/api/notifications/stream"}, asyncSupported = true)
+public class NotificationStreamServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long HEARTBEAT_SECONDS = 25;
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    
+    private final AuthTokenService tokenService = AuthTokenService.getInstance();
+    private final NotificationHub hub = NotificationHub.getInstance();
+    private final Set<EventStream> streams = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService heartbeat;
+    
+    @Override
+    public void init() throws ServletException {
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notification-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(() -> {
+            for (EventStream stream : streams) {
+                stream.send(HEARTBEAT);
+            }
+        }, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        for (EventStream stream : streams) {
+            stream.close();
+        }
+    }
+    
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String userId = authenticate(request);
+        if (userId == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType("application/json");
+            response.getWriter().print("{\"success\":false,\"message\":\"Not authenticated\"}");
+            return;
+        }
+        
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        // Stop nginx and similar proxies from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+        
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(0);
+        EventStream stream = new EventStream(userId, asyncContext, response.getOutputStream());
+        asyncContext.addListener(stream);
+        streams.add(stream);
+        hub.subscribe(userId, stream);
+        
+        stream.send("retry: 5000\n\n".getBytes(StandardCharsets.UTF_8));
+        response.getOutputStream().setWriteListener(stream);
+    }
+    
+    /**
+     * The id of the user making the request, or null if not authenticated
+     */
+    private String authenticate(HttpServletRequest request) {
+        String token = AuthenticationServlet.readToken(request);
+        if (token != null) {
+            Object sessionStore = getServletContext().getAttribute(AuthenticationServlet.SESSION_STORE_ATTRIBUTE);
+            String userId = sessionStore instanceof SessionStore
+                ? ((SessionStore) sessionStore).getUserId(token)
+                : null;
+            if (userId != null) {
+                return userId;
+            }
+            AuthTokenService.TokenClaims claims = tokenService.verify(token);
+            if (claims != null) {
+                return claims.getUserId();
+            }
+        }
+        
+        HttpSession session = request.getSession(false);
+        Object user = session != null ? session.getAttribute("user") : null;
+        return user instanceof UserAccount ? ((UserAccount) user).getId() : null;
+    }
+    
+    /**
+     * One client connection
+     */
+    private class EventStream implements NotificationHub.Subscriber, WriteListener, AsyncListener {
+        private final String userId;
+        private final AsyncContext asyncContext;
+        private final ServletOutputStream out;
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean listenerRegistered;
+        private boolean unflushed;
+        
+        EventStream(String userId, AsyncContext asyncContext, ServletOutputStream out) {
+            this.userId = userId;
+            this.asyncContext = asyncContext;
+            this.out = out;
+        }
+        
+        @Override
+        public boolean offer(String event) {
+            return send(("event: notification\ndata: " + event + "\n\n").getBytes(StandardCharsets.UTF_8));
+        }
+        
+        boolean send(byte[] frame) {
+            if (closed.get()) {
+                return false;
+            }
+            if (!queue.offer(frame)) {
+                close();
+                return false;
+            }
+            drain();
+            return true;
+        }
+        
+        /**
+         * Write queued frames while the container can take them without blocking
+         */
+        private synchronized void drain() {
+            // Nothing may be written before the write listener has been registered
+            if (!listenerRegistered || closed.get()) {
+                return;
+            }
+            try {
+                while (out.isReady()) {
+                    byte[] frame = queue.poll();
+                    if (frame == null) {
+                        if (!unflushed) {
+                            return;
+                        }
+                        unflushed = false;
+                        out.flush();
+                    } else {
+                        out.write(frame);
+                        unflushed = true;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+        
+        @Override
+        public void onWritePossible() {
+            listenerRegistered = true;
+            drain();
+        }
+        
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+        
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                streams.remove(this);
+                hub.unsubscribe(userId, this);
+                queue.clear();
+                try {
+                    asyncContext.complete();
+                } catch (IllegalStateException e) {
+                    // Already completed by the container
+                }
+            }
+        }
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Not used
+        }
+    }
+}
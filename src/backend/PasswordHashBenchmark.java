@@ -0,0 +1,67 @@
+package com.weddingvendor.backend;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures login throughput through PasswordHasher at several cost settings.
+ *
+ * Each run starts more client threads than the hashing pool has workers, as
+ * a login burst would, and reports successful logins per second alongside
+ * how many attempts were turned away by the fast-fail queue. Run with
+ * {@code java com.weddingvendor.backend.PasswordHashBenchmark [seconds] [iterations...]}.
+ */
+public class PasswordHashBenchmark {
+    
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int[] costs = { 10_000, 50_000, 100_000, 210_000 };
+        if (args.length > 1) {
+            costs = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                costs[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+        
+        int cores = Runtime.getRuntime().availableProcessors();
+        int clients = cores * 8;
+        System.out.println("Hashing threads: " + cores + ", client threads: " + clients + ", duration: " + seconds + "s per cost");
+        
+        for (int cost : costs) {
+            PasswordHasher hasher = new PasswordHasher(cost, cores, cores * 4);
+            String stored = hasher.hashNow("correct horse battery staple", cost);
+            
+            LongAdder logins = new LongAdder();
+            LongAdder busy = new LongAdder();
+            CountDownLatch done = new CountDownLatch(clients);
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            
+            for (int c = 0; c < clients; c++) {
+                Thread client = new Thread(() -> {
+                    while (System.nanoTime() < deadline) {
+                        try {
+                            if (hasher.verify("correct horse battery staple", stored).matches()) {
+                                logins.increment();
+                            }
+                        } catch (PasswordHasher.BusyException e) {
+                            busy.increment();
+                            // Back off as a client honouring Retry-After would, scaled down
+                            try {
+                                Thread.sleep(5);
+                            } catch (InterruptedException ie) {
+                                return;
+                            }
+                        }
+                    }
+                    done.countDown();
+                });
+                client.start();
+            }
+            done.await();
+            hasher.shutdown();
+            
+            System.out.printf("iterations %,9d: %,8.1f logins/s, %,d rejected as busy%n",
+                cost, logins.sum() / (double) seconds, busy.sum());
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.weddingvendor.backend;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Password hashing for the auth servlets, run on a dedicated bounded executor.
+ *
+ * Hashes are PBKDF2-HMAC-SHA256 stored as {@code pbkdf2$iterations$salt$hash}.
+ * Each check deliberately burns CPU, so a login burst run on the request
+ * threads would starve every other endpoint. Instead all hashing goes
+ * through a pool with one thread per core and a short queue; when the queue
+ * is full the caller gets a BusyException straight away and can answer 503
+ * rather than pile up behind the backlog.
+ *
+ * The cost (iteration count) comes from AUTH_HASH_ITERATIONS and can be
+ * changed at runtime. Stored hashes made with a different cost, and legacy
+ * plaintext values, still verify and are returned rehashed so they are
+ * upgraded transparently on the user's next successful login.
+ */
+public class PasswordHasher {
+    private static final String PREFIX = "pbkdf2";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int DEFAULT_ITERATIONS = 210_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final long WAIT_SECONDS = 10;
+    
+    private static final PasswordHasher instance = new PasswordHasher(
+        intFromEnv("AUTH_HASH_ITERATIONS", DEFAULT_ITERATIONS),
+        Runtime.getRuntime().availableProcessors(),
+        intFromEnv("AUTH_HASH_QUEUE", Runtime.getRuntime().availableProcessors() * 4));
+    
+    private final ThreadPoolExecutor executor;
+    private final SecureRandom random = new SecureRandom();
+    private volatile int iterations;
+    // Checked against when the user does not exist, so unknown emails take as long as known ones
+    private volatile String dummyHash;
+    
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder rehashes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    
+    PasswordHasher(int iterations, int threads, int queueCapacity) {
+        this.iterations = iterations;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                Thread thread = new Thread(r, "password-hasher-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    public static PasswordHasher getInstance() {
+        return instance;
+    }
+    
+    /**
+     * A positive integer from the environment, or the default if the variable
+     * is unset, unparseable or below 1
+     */
+    private static int intFromEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= 1) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        System.out.println("Ignoring invalid " + name + ": " + value);
+        return defaultValue;
+    }
+    
+    public int getIterations() {
+        return iterations;
+    }
+    
+    /**
+     * Change the hashing cost. Existing hashes keep verifying and are
+     * rehashed at the new cost on the next successful login.
+     */
+    public void setIterations(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+        this.iterations = iterations;
+        this.dummyHash = null;
+    }
+    
+    /**
+     * Hash a new password on the hashing pool, waiting for the result
+     */
+    public String hash(String password) throws BusyException {
+        return await(submit(() -> hashNow(password, iterations)));
+    }
+    
+    /**
+     * Check a password against a stored value on the hashing pool. The
+     * stored value may be null (unknown user), in which case the check
+     * costs the same but never matches.
+     */
+    public VerifyResult verify(String password, String stored) throws BusyException {
+        return await(submit(() -> verifyNow(password, stored)));
+    }
+    
+    /**
+     * True if the stored value is not a hash at the current cost
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX + "$")) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || !String.valueOf(iterations).equals(parts[1]);
+    }
+    
+    VerifyResult verifyNow(String password, String stored) {
+        verifications.increment();
+        if (password == null) {
+            password = "";
+        }
+        
+        int cost = iterations;
+        boolean matches;
+        if (stored == null) {
+            String dummy = dummyHash;
+            if (dummy == null) {
+                dummy = hashNow("", cost);
+                dummyHash = dummy;
+            }
+            matchesHash(password, dummy);
+            return new VerifyResult(false, null);
+        } else if (stored.startsWith(PREFIX + "$")) {
+            matches = matchesHash(password, stored);
+        } else {
+            // Legacy plaintext value
+            matches = MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                stored.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        if (matches && needsRehash(stored)) {
+            rehashes.increment();
+            return new VerifyResult(true, hashNow(password, cost));
+        }
+        return new VerifyResult(matches, null);
+    }
+    
+    String hashNow(String password, int cost) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, cost);
+        hashes.increment();
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + cost + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+    
+    private boolean matchesHash(String password, String stored) {
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int cost = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, pbkdf2(password, salt, cost));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    private byte[] pbkdf2(String password, byte[] salt, int cost) {
+        long start = System.nanoTime();
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, cost, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException("Unable to hash password", e);
+        } finally {
+            spec.clearPassword();
+            hashNanos.add(System.nanoTime() - start);
+        }
+    }
+    
+    private <T> Future<T> submit(Callable<T> task) throws BusyException {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new BusyException();
+        }
+    }
+    
+    private <T> T await(Future<T> future) throws BusyException {
+        try {
+            return future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new BusyException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new BusyException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+    
+    void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long operations = hashes.sum() + verifications.sum();
+        stats.put("iterations", iterations);
+        stats.put("threads", executor.getMaximumPoolSize());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("hashes", hashes.sum());
+        stats.put("verifications", verifications.sum());
+        stats.put("rehashes", rehashes.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("hashNanosPerOperation", operations > 0 ? hashNanos.sum() / operations : 0);
+        return stats;
+    }
+    
+    /**
+     * Outcome of a password check. When the stored value should be upgraded,
+     * getRehash() returns its replacement at the current cost.
+     */
+    public static class VerifyResult {
+        private final boolean matches;
+        private final String rehash;
+        
+        VerifyResult(boolean matches, String rehash) {
+            this.matches = matches;
+            this.rehash = rehash;
+        }
+        
+        public boolean matches() { return matches; }
+        public String getRehash() { return rehash; }
+    }
+    
+    /**
+     * Thrown when the hashing pool is saturated; callers should answer 503
+     */
+    public static class BusyException extends Exception {
+        private static final long serialVersionUID = 1L;
+        
+        public BusyException() {
+            super("Authentication is busy, please retry shortly");
+        }
+    }
+}
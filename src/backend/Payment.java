@@ -25,6 +25,21 @@ public class Payment implements Serializable {
     public Payment() {
     }
     
+    // Copy constructor, for snapshots that must not change underneath the reader
+    public Payment(Payment other) {
+        this.id = other.id;
+        this.bookingId = other.bookingId;
+        this.userId = other.userId;
+        this.vendorId = other.vendorId;
+        this.amount = other.amount;
+        this.currency = other.currency;
+        this.paymentMethod = other.paymentMethod;
+        this.status = other.status;
+        this.transactionId = other.transactionId;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+    
     // Getters and Setters
     public String getId() {
         return id;
@@ -3,6 +3,8 @@ package com.weddingvendor.backend;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import javax.servlet.ServletException;
@@ -22,6 +24,9 @@ public class PaymentGatewayServlet extends HttpServlet {
     private static PaymentSystem paymentSystem = new PaymentSystem();
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     
+    // Records written between flushes of a streaming export
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+    
     /**
      * @see HttpServlet#HttpServlet()
      */
@@ -33,6 +38,11 @@ public class PaymentGatewayServlet extends HttpServlet {
      * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse response)
      */
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if ("/_export".equals(request.getPathInfo())) {
+            handleExport(request, response);
+            return;
+        }
+        
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
@@ -76,6 +86,44 @@ public class PaymentGatewayServlet extends HttpServlet {
         out.flush();
     }
 
+    /**
+     * Stream all payments as NDJSON, one record per line, optionally limited to
+     * those updated since the ISO-8601 updatedSince parameter (400 if it cannot
+     * be parsed). Records are
+     * written as they are read, so clients can start processing immediately.
+     */
+    private void handleExport(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String updatedSince = request.getParameter("updatedSince");
+        Instant since = null;
+        if (updatedSince != null && !updatedSince.trim().isEmpty()) {
+            try {
+                since = Timestamps.parse(updatedSince);
+            } catch (DateTimeParseException e) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.setContentType("application/json");
+                response.setCharacterEncoding("UTF-8");
+                response.getWriter().print(gson.toJson(new ErrorResponse(
+                    "Invalid updatedSince, expected an ISO-8601 date or date-time: " + updatedSince)));
+                return;
+            }
+        }
+        
+        response.setContentType(NdjsonWriter.CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        
+        NdjsonWriter<Payment> writer = new NdjsonWriter<>(response.getWriter(), EXPORT_FLUSH_INTERVAL);
+        try {
+            paymentSystem.exportPayments(since, writer);
+            writer.finish();
+            System.out.println("Exported " + writer.getCount() + " payments" +
+                               (since != null ? " updated since " + since : ""));
+        } catch (IOException e) {
+            // Most likely the client went away mid-export
+            System.err.println("Payment export aborted after " + writer.getCount() + " records: " + e.getMessage());
+        }
+    }
+    
     /**
      * @see HttpServlet#doPost(HttpServletRequest request, HttpServletResponse response)
      */
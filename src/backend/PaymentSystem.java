@@ -2,11 +2,14 @@
 package com.weddingvendor.backend;
 
 import java.io.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 /**
@@ -18,6 +21,12 @@ public class PaymentSystem {
     private static final String DATA_FILE = "data/payments.dat";
     private static boolean isInitialized = false;
     
+    // Guards the payments list against concurrent processing and exports
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Number of payments copied per read-lock hold during a streaming export
+    private static final int EXPORT_CHUNK_SIZE = 256;
+    
     // Initialize with sample data or load from file
     static {
         loadFromFile();
@@ -115,36 +124,93 @@ public class PaymentSystem {
      * Get all payments in the system
      */
     public List<Payment> getAllPayments() {
-        return new ArrayList<>(payments);
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(payments);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Stream payments to a sink, optionally only those updated at or after
+     * updatedSince (see Timestamps).
+     *
+     * Payments are never deleted, so the list only grows and can be walked by
+     * position: each payment in a chunk is copied under the read lock, so a
+     * record is never written half updated, and the chunk is written with the
+     * lock released, keeping memory constant and never blocking new payments.
+     */
+    public void exportPayments(Instant updatedSince, RecordSink<Payment> sink) throws IOException {
+        List<Payment> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+        int position = 0;
+        
+        while (true) {
+            chunk.clear();
+            lock.readLock().lock();
+            try {
+                int end = Math.min(position + EXPORT_CHUNK_SIZE, payments.size());
+                if (position >= end) {
+                    return;
+                }
+                for (; position < end; position++) {
+                    Payment payment = payments.get(position);
+                    if (Timestamps.isAtOrAfter(payment.getUpdatedAt(), payment.getCreatedAt(), updatedSince)) {
+                        chunk.add(new Payment(payment));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            
+            for (Payment payment : chunk) {
+                sink.accept(payment);
+            }
+        }
     }
     
     /**
      * Get payments for a specific user
      */
     public List<Payment> getUserPayments(String userId) {
-        return payments.stream()
-            .filter(payment -> payment.getUserId().equals(userId))
-            .collect(Collectors.toList());
+        lock.readLock().lock();
+        try {
+            return payments.stream()
+                .filter(payment -> payment.getUserId().equals(userId))
+                .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
      * Get a specific payment by ID
      */
     public Payment getPaymentById(String paymentId) {
-        return payments.stream()
-            .filter(payment -> payment.getId().equals(paymentId))
-            .findFirst()
-            .orElse(null);
+        lock.readLock().lock();
+        try {
+            return payments.stream()
+                .filter(payment -> payment.getId().equals(paymentId))
+                .findFirst()
+                .orElse(null);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
      * Get payment by booking ID
      */
     public Payment getPaymentByBookingId(String bookingId) {
-        return payments.stream()
-            .filter(payment -> payment.getBookingId().equals(bookingId))
-            .findFirst()
-            .orElse(null);
+        lock.readLock().lock();
+        try {
+            return payments.stream()
+                .filter(payment -> payment.getBookingId().equals(bookingId))
+                .findFirst()
+                .orElse(null);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
@@ -191,11 +257,16 @@ public class PaymentSystem {
         payment.setCreatedAt(now);
         payment.setUpdatedAt(now);
         
-        // Add to collection
-        payments.add(payment);
-        
-        // Save changes to file
-        saveToFile();
+        lock.writeLock().lock();
+        try {
+            // Add to collection
+            payments.add(payment);
+            
+            // Save changes to file
+            saveToFile();
+        } finally {
+            lock.writeLock().unlock();
+        }
         
         return payment;
     }
@@ -204,26 +275,31 @@ public class PaymentSystem {
      * Update an existing payment
      */
     public boolean updatePayment(String paymentId, Payment updates) {
-        for (int i = 0; i < payments.size(); i++) {
-            Payment payment = payments.get(i);
-            
-            if (payment.getId().equals(paymentId)) {
-                // Update status if provided
-                if (updates.getStatus() != null) payment.setStatus(updates.getStatus());
-                
-                // Update transactionId if provided
-                if (updates.getTransactionId() != null) payment.setTransactionId(updates.getTransactionId());
-                
-                // Always update the updatedAt timestamp
-                payment.setUpdatedAt(LocalDateTime.now().format(ISO_FORMAT));
-                
-                // Save changes to file
-                saveToFile();
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < payments.size(); i++) {
+                Payment payment = payments.get(i);
                 
-                return true;
+                if (payment.getId().equals(paymentId)) {
+                    // Update status if provided
+                    if (updates.getStatus() != null) payment.setStatus(updates.getStatus());
+                    
+                    // Update transactionId if provided
+                    if (updates.getTransactionId() != null) payment.setTransactionId(updates.getTransactionId());
+                    
+                    // Always update the updatedAt timestamp
+                    payment.setUpdatedAt(LocalDateTime.now().format(ISO_FORMAT));
+                    
+                    // Save changes to file
+                    saveToFile();
+                    
+                    return true;
+                }
             }
+            
+            return false;
+        } finally {
+            lock.writeLock().unlock();
         }
-        
-        return false;
     }
 }
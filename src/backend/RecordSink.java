@@ -0,0 +1,11 @@
+package com.weddingvendor.backend;
+
+import java.io.IOException;
+
+/**
+ * Receives records one at a time from a streaming export
+ */
+@FunctionalInterface
+public interface RecordSink<T> {
+    void accept(T record) throws IOException;
+}
@@ -0,0 +1,222 @@
+package com.weddingvendor.backend;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Byte-level cache of rendered JSON responses.
+ *
+ * Entries hold the UTF-8 body and a pre-gzipped copy so a hit costs no
+ * serialization or compression. Memory is bounded by an LRU on both entry
+ * count and total bytes. Keys are split into list queries, which depend on
+ * every vendor, and single-vendor lookups, which depend on one id, so a
+ * write only evicts the entries it can actually affect.
+ *
+ * Each put carries the data version the body was rendered from; if a write
+ * has happened since, the body is returned but not stored, so a render that
+ * races with an invalidation can never leave a stale entry behind.
+ */
+public class ResponseCache {
+    private static final String LIST_PREFIX = "list:";
+    private static final String ITEM_PREFIX = "item:";
+    
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LongSupplier versionSource;
+    private final LinkedHashMap<String, CachedResponse> entries;
+    private long currentBytes;
+    
+    private long hits;
+    private long misses;
+    
+    public ResponseCache(int maxEntries, long maxBytes, LongSupplier versionSource) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.versionSource = versionSource;
+        // Access-ordered so iteration starts at the least recently used entry
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+    
+    /**
+     * Build the cache key for a list query. Mirrors VendorServlet's choice of
+     * query (search, then category, then location, then sortBy) so that two
+     * requests share a key only if the servlet would render the same body.
+     */
+    public static String listKey(Map<String, String[]> parameters) {
+        String search = firstValue(parameters, "search");
+        if (search != null && !search.isEmpty()) {
+            return LIST_PREFIX + "search=" + search.toLowerCase();
+        }
+        String category = firstValue(parameters, "category");
+        if (category != null && !category.equals("all")) {
+            return LIST_PREFIX + "category=" + category.toLowerCase();
+        }
+        String location = firstValue(parameters, "location");
+        if (location != null && !location.equals("all")) {
+            return LIST_PREFIX + "location=" + location;
+        }
+        String sortBy = firstValue(parameters, "sortBy");
+        if (sortBy != null) {
+            switch (sortBy) {
+                case "priceAsc":
+                case "priceDesc":
+                case "rating":
+                    return LIST_PREFIX + "sortBy=" + sortBy;
+                default:
+                    break;
+            }
+        }
+        return LIST_PREFIX;
+    }
+    
+    /**
+     * Build the cache key for a single vendor lookup
+     */
+    public static String itemKey(String vendorId) {
+        return ITEM_PREFIX + vendorId;
+    }
+    
+    private static String firstValue(Map<String, String[]> parameters, String name) {
+        String[] values = parameters.get(name);
+        return values != null && values.length > 0 ? values[0] : null;
+    }
+    
+    public synchronized CachedResponse get(String key) {
+        CachedResponse cached = entries.get(key);
+        if (cached != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return cached;
+    }
+    
+    /**
+     * Store a body rendered at the given data version. The body is encoded and
+     * gzipped outside the lock.
+     */
+    public CachedResponse put(String key, String body, String contentType, long renderedAtVersion) {
+        CachedResponse cached = new CachedResponse(body.getBytes(StandardCharsets.UTF_8), contentType);
+        if (cached.size() > maxBytes) {
+            return cached;
+        }
+        
+        synchronized (this) {
+            // Writers bump the version before invalidating, so checking it under
+            // the same lock as invalidateVendor closes the stale-put window
+            if (versionSource.getAsLong() != renderedAtVersion) {
+                return cached;
+            }
+            CachedResponse previous = entries.put(key, cached);
+            if (previous != null) {
+                currentBytes -= previous.size();
+            }
+            currentBytes += cached.size();
+            evictIfNeeded();
+        }
+        return cached;
+    }
+    
+    private void evictIfNeeded() {
+        Iterator<CachedResponse> it = entries.values().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && it.hasNext()) {
+            currentBytes -= it.next().size();
+            it.remove();
+        }
+    }
+    
+    /**
+     * Drop everything a change to the given vendor can affect: its own entry
+     * and every list query.
+     */
+    public void invalidateVendor(String vendorId) {
+        invalidateVendors(Collections.singleton(vendorId));
+    }
+    
+    /**
+     * Drop everything a batch of vendor changes can affect, scanning the list
+     * queries once for the whole batch.
+     */
+    public synchronized void invalidateVendors(Collection<String> vendorIds) {
+        for (String vendorId : vendorIds) {
+            CachedResponse removed = entries.remove(itemKey(vendorId));
+            if (removed != null) {
+                currentBytes -= removed.size();
+            }
+        }
+        
+        Iterator<Map.Entry<String, CachedResponse>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, CachedResponse> entry = it.next();
+            if (entry.getKey().startsWith(LIST_PREFIX)) {
+                currentBytes -= entry.getValue().size();
+                it.remove();
+            }
+        }
+    }
+    
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+    
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+    
+    public synchronized long getHits() {
+        return hits;
+    }
+    
+    public synchronized long getMisses() {
+        return misses;
+    }
+    
+    /**
+     * A rendered response body in identity and gzip encodings
+     */
+    public static class CachedResponse {
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final String contentType;
+        
+        CachedResponse(byte[] body, String contentType) {
+            this.body = body;
+            this.gzipBody = gzip(body);
+            this.contentType = contentType;
+        }
+        
+        public byte[] getBody() { return body; }
+        public byte[] getGzipBody() { return gzipBody; }
+        public String getContentType() { return contentType; }
+        
+        long size() {
+            return body.length + (gzipBody != null ? gzipBody.length : 0);
+        }
+        
+        private static byte[] gzip(byte[] data) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                gzip.write(data);
+            } catch (IOException e) {
+                System.err.println("Error compressing cached response: " + e.getMessage());
+                return null;
+            }
+            byte[] compressed = buffer.toByteArray();
+            // Not worth serving compressed if it doesn't shrink
+            return compressed.length < data.length ? compressed : null;
+        }
+    }
+}
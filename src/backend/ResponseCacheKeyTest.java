@@ -0,0 +1,74 @@
+package com.weddingvendor.backend;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Checks that ResponseCache list keys follow VendorServlet's query logic:
+ * requests the servlet answers differently must get different keys, and
+ * requests it answers the same way should share one. Exits with status 1 on
+ * any mismatch. Run with {@code java com.weddingvendor.backend.ResponseCacheKeyTest}.
+ */
+public class ResponseCacheKeyTest {
+    private static int failures;
+
+    public static void main(String[] args) {
+        // Each of these renders a different body from plain GET /api/vendors
+        Map<String, String> distinct = new LinkedHashMap<>();
+        distinct.put("", ResponseCache.listKey(params()));
+        distinct.put("?search=all", ResponseCache.listKey(params("search", "all")));
+        distinct.put("?category=", ResponseCache.listKey(params("category", "")));
+        distinct.put("?location=", ResponseCache.listKey(params("location", "")));
+        distinct.put("?category=venue", ResponseCache.listKey(params("category", "venue")));
+        distinct.put("?location=venue", ResponseCache.listKey(params("location", "venue")));
+        distinct.put("?sortBy=rating", ResponseCache.listKey(params("sortBy", "rating")));
+
+        Map<String, String> seen = new HashMap<>();
+        for (Map.Entry<String, String> entry : distinct.entrySet()) {
+            String previous = seen.put(entry.getValue(), entry.getKey());
+            check(previous == null, "'" + entry.getKey() + "' and '" + previous + "' share key " + entry.getValue());
+        }
+
+        // The servlet ignores these, so they should not split the cache
+        String plain = ResponseCache.listKey(params());
+        sameKey(plain, params("category", "all"), "?category=all");
+        sameKey(plain, params("location", "all"), "?location=all");
+        sameKey(plain, params("search", ""), "?search=");
+        sameKey(plain, params("sortBy", "unknown"), "?sortBy=unknown");
+
+        // Search wins over every other filter, and matches case-insensitively
+        sameKey(ResponseCache.listKey(params("search", "Rose")),
+            params("search", "rose", "category", "venue", "sortBy", "rating"), "?search=rose&category=venue");
+        // Location matching is case-sensitive
+        check(!ResponseCache.listKey(params("location", "Colombo"))
+                .equals(ResponseCache.listKey(params("location", "colombo"))),
+            "?location=Colombo and ?location=colombo share a key");
+
+        if (failures > 0) {
+            System.out.println(failures + " check(s) failed");
+            System.exit(1);
+        }
+        System.out.println("All cache key checks passed");
+    }
+
+    private static void sameKey(String expected, Map<String, String[]> parameters, String query) {
+        String actual = ResponseCache.listKey(parameters);
+        check(expected.equals(actual), "'" + query + "' got key " + actual + ", expected " + expected);
+    }
+
+    private static Map<String, String[]> params(String... nameValues) {
+        Map<String, String[]> parameters = new HashMap<>();
+        for (int i = 0; i < nameValues.length; i += 2) {
+            parameters.put(nameValues[i], new String[] { nameValues[i + 1] });
+        }
+        return parameters;
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            failures++;
+            System.out.println("FAIL: " + message);
+        }
+    }
+}
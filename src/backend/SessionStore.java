@@ -0,0 +1,38 @@
+package com.weddingvendor.backend;
+
+/**
+ * Server-side store of session tokens, each mapped to a user and an expiry time.
+ *
+ * Implementations must be thread-safe. Expired sessions are never returned,
+ * whether or not they have been purged yet.
+ */
+public interface SessionStore {
+    
+    /**
+     * Create a session for the user, returning its token
+     */
+    String createSession(String userId, long ttlMillis);
+    
+    /**
+     * The user a token belongs to, or null if it is unknown, invalidated or expired
+     */
+    String getUserId(String token);
+    
+    default boolean isValid(String token) {
+        return getUserId(token) != null;
+    }
+    
+    void invalidate(String token);
+    
+    /**
+     * Invalidate every session of the user, returning how many were removed
+     */
+    int invalidateAll(String userId);
+    
+    int size();
+    
+    /**
+     * Stop background expiry and release any resources
+     */
+    void close();
+}
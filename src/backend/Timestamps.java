@@ -0,0 +1,62 @@
+package com.weddingvendor.backend;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parsing of the ISO-8601 timestamps stored on bookings and payments and
+ * accepted by the export endpoints.
+ *
+ * Stored values come in two forms: UTC with a "Z" suffix (the sample data)
+ * and server-local time without an offset (LocalDateTime.now()). Both, and
+ * plain dates, are turned into instants so that they compare correctly
+ * whatever offset a client uses.
+ */
+public final class Timestamps {
+    
+    private Timestamps() {
+    }
+    
+    /**
+     * Parse a date-time with an offset, a local date-time or a date (start
+     * of day). Values without an offset are taken as server-local time.
+     *
+     * @throws DateTimeParseException if the value is none of these
+     */
+    public static Instant parse(String value) {
+        String trimmed = value.trim();
+        try {
+            return OffsetDateTime.parse(trimmed).toInstant();
+        } catch (DateTimeParseException e) {
+            if (trimmed.length() <= 10) {
+                return LocalDate.parse(trimmed).atStartOfDay(ZoneId.systemDefault()).toInstant();
+            }
+            return LocalDateTime.parse(trimmed).atZone(ZoneId.systemDefault()).toInstant();
+        }
+    }
+    
+    /**
+     * Whether a record last updated at updatedAt (falling back to createdAt)
+     * changed at or after since. A null since matches everything, and so does
+     * an unreadable stored timestamp: an incremental export would rather
+     * repeat a record than miss it.
+     */
+    public static boolean isAtOrAfter(String updatedAt, String createdAt, Instant since) {
+        if (since == null) {
+            return true;
+        }
+        String stored = updatedAt != null ? updatedAt : createdAt;
+        if (stored == null) {
+            return false;
+        }
+        try {
+            return !parse(stored).isBefore(since);
+        } catch (DateTimeParseException e) {
+            return true;
+        }
+    }
+}
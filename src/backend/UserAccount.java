@@ -0,0 +1,66 @@
+package com.weddingvendor.backend;
+
+import java.io.Serializable;
+
+/**
+ * Represents a user account in the UserDirectory.
+ *
+ * Accounts are shared between request threads, so the only field that
+ * changes after registration (the password hash, when it is upgraded) is
+ * volatile and updated through UserDirectory.updatePassword.
+ */
+public class UserAccount implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private String id;
+    private String email;
+    private volatile String password;
+    private String name;
+    private String role;
+    private String createdAt;
+    
+    // Default constructor
+    public UserAccount() {
+    }
+    
+    public UserAccount(String id, String email, String password, String name, String role, String createdAt) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.name = name;
+        this.role = role;
+        this.createdAt = createdAt;
+    }
+    
+    // Getters
+    public String getId() {
+        return id;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    /**
+     * The stored password hash (or a legacy plaintext value awaiting upgrade)
+     */
+    public String getPassword() {
+        return password;
+    }
+    
+    void setPassword(String password) {
+        this.password = password;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+    
+    public String getCreatedAt() {
+        return createdAt;
+    }
+}
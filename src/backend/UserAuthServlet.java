@@ -3,8 +3,6 @@ package com.weddingvendor.backend;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.Map;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -13,6 +11,7 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.weddingvendor.security.LoginRateLimiter;
 
 /**
  * Servlet handling user authentication
@@ -21,36 +20,10 @@ import com.google.gson.GsonBuilder;
 public class UserAuthServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final PasswordHasher passwordHasher = PasswordHasher.getInstance();
+    private final LoginRateLimiter rateLimiter = LoginRateLimiter.getShared();
+    private final UserDirectory userDirectory = UserDirectory.getInstance();
     
-    // Simple in-memory user store - in a real app this would be a database
-    private static final Map<String, UserAccount> userAccounts = new HashMap<>();
-    
-    // Initialize with demo accounts
-    static {
-        // Client account
-        UserAccount clientAccount = new UserAccount();
-        clientAccount.setEmail("client@example.com");
-        clientAccount.setPassword("password");
-        clientAccount.setName("Demo Client");
-        clientAccount.setRole("user");
-        userAccounts.put(clientAccount.getEmail(), clientAccount);
-        
-        // Vendor account
-        UserAccount vendorAccount = new UserAccount();
-        vendorAccount.setEmail("vendor@example.com");
-        vendorAccount.setPassword("password");
-        vendorAccount.setName("Demo Vendor");
-        vendorAccount.setRole("vendor");
-        userAccounts.put(vendorAccount.getEmail(), vendorAccount);
-        
-        // Admin account
-        UserAccount adminAccount = new UserAccount();
-        adminAccount.setEmail("admin@example.com");
-        adminAccount.setPassword("password");
-        adminAccount.setName("System Administrator");
-        adminAccount.setRole("admin");
-        userAccounts.put(adminAccount.getEmail(), adminAccount);
-    }
     
     /**
      * @see HttpServlet#HttpServlet()
@@ -58,7 +31,7 @@ public class UserAuthServlet extends HttpServlet {
     public UserAuthServlet() {
         super();
     }
-
+    
     /**
      * @see HttpServlet#doPost(HttpServletRequest request, HttpServletResponse response)
      */
@@ -77,11 +50,26 @@ public class UserAuthServlet extends HttpServlet {
                 String password = loginRequest.getPassword();
                 String role = loginRequest.getRole();
                 
-                UserAccount account = userAccounts.get(email);
+                // Per-IP limits are applied by LoginRateLimitFilter before the body is read
+                long waitMillis = rateLimiter.tryAcquireEmail(email);
+                if (waitMillis > 0) {
+                    response.setStatus(429);
+                    response.setHeader("Retry-After", String.valueOf(LoginRateLimiter.toRetryAfterSeconds(waitMillis)));
+                    out.print(gson.toJson(new ErrorResponse("Too many login attempts, please retry later")));
+                    return;
+                }
+                
+                UserAccount account = userDirectory.findByEmail(email);
+                PasswordHasher.VerifyResult check = passwordHasher.verify(password, account != null ? account.getPassword() : null);
                 
-                if (account != null && account.getPassword().equals(password) && 
+                if (account != null && check.matches() && 
                     (role == null || account.getRole().equals(role))) {
                     
+                    // Upgrade plaintext or outdated hashes transparently
+                    if (check.getRehash() != null) {
+                        userDirectory.updatePassword(account, check.getRehash());
+                    }
+                    
                     // Create session
                     HttpSession session = request.getSession(true);
                     session.setAttribute("user", account);
@@ -106,20 +94,20 @@ public class UserAuthServlet extends HttpServlet {
                 RegisterRequest registerRequest = gson.fromJson(request.getReader(), RegisterRequest.class);
                 
                 // Check if user already exists
-                if (userAccounts.containsKey(registerRequest.getEmail())) {
+                if (userDirectory.emailExists(registerRequest.getEmail())) {
                     response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
                     out.print(gson.toJson(new ErrorResponse("User already exists")));
                     return;
                 }
                 
-                // Create new user account
-                UserAccount newAccount = new UserAccount();
-                newAccount.setEmail(registerRequest.getEmail());
-                newAccount.setPassword(registerRequest.getPassword());
-                newAccount.setName(registerRequest.getName());
-                newAccount.setRole(registerRequest.getRole());
-                
-                userAccounts.put(newAccount.getEmail(), newAccount);
+                // Create new user account; null if a concurrent registration claimed the email first
+                UserAccount newAccount = userDirectory.register(registerRequest.getEmail(),
+                    passwordHasher.hash(registerRequest.getPassword()), registerRequest.getName(), registerRequest.getRole());
+                if (newAccount == null) {
+                    response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                    out.print(gson.toJson(new ErrorResponse("User already exists")));
+                    return;
+                }
                 
                 // Return success response
                 out.print(gson.toJson(new SuccessResponse("User registered successfully")));
@@ -135,6 +123,10 @@ public class UserAuthServlet extends HttpServlet {
                 response.setStatus(HttpServletResponse.SC_NOT_FOUND);
                 out.print(gson.toJson(new ErrorResponse("Invalid endpoint")));
             }
+        } catch (PasswordHasher.BusyException e) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            out.print(gson.toJson(new ErrorResponse(e.getMessage())));
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             out.print(gson.toJson(new ErrorResponse("Error processing request: " + e.getMessage())));
@@ -191,25 +183,6 @@ public class UserAuthServlet extends HttpServlet {
     }
     
     // Helper classes for request/response
-    static class UserAccount {
-        private String email;
-        private String password;
-        private String name;
-        private String role;
-        
-        public String getEmail() { return email; }
-        public void setEmail(String email) { this.email = email; }
-        
-        public String getPassword() { return password; }
-        public void setPassword(String password) { this.password = password; }
-        
-        public String getName() { return name; }
-        public void setName(String name) { this.name = name; }
-        
-        public String getRole() { return role; }
-        public void setRole(String role) { this.role = role; }
-    }
-    
     static class LoginRequest {
         private String email;
         private String password;
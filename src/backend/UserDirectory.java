@@ -0,0 +1,189 @@
+package com.weddingvendor.backend;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Thread-safe user store shared by the auth servlets.
+ *
+ * Users are indexed by id and by email (compared case-insensitively) in
+ * ConcurrentHashMaps, so lookups are O(1) and lock-free. Registration claims
+ * the email with putIfAbsent, which makes uniqueness atomic: of two
+ * concurrent registrations for the same email exactly one succeeds.
+ *
+ * Every change is appended to data/users.log as one JSON record per line,
+ * and the log is replayed on startup with the last record for an id
+ * winning. Appends are cheap and never rewrite existing data; the log is
+ * compacted on startup once superseded records outnumber live ones.
+ */
+public class UserDirectory {
+    private static final String LOG_FILE = "data/users.log";
+    
+    private static final UserDirectory instance = new UserDirectory(new File(LOG_FILE));
+    
+    private final Gson gson = new Gson();
+    private final Map<String, UserAccount> usersById = new ConcurrentHashMap<>();
+    private final Map<String, UserAccount> usersByEmail = new ConcurrentHashMap<>();
+    private final File logFile;
+    private BufferedWriter log;
+    
+    UserDirectory(File logFile) {
+        this.logFile = logFile;
+        int records = replay();
+        if (usersById.isEmpty()) {
+            initializeDemoAccounts();
+        } else if (records > usersById.size() * 2) {
+            compact();
+        }
+        System.out.println("UserDirectory loaded " + usersById.size() + " users from " + records + " log records");
+    }
+    
+    public static UserDirectory getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Seed the demo accounts. Their passwords are hashed before they are
+     * registered so that no plaintext password ever reaches the log.
+     */
+    private void initializeDemoAccounts() {
+        PasswordHasher hasher = PasswordHasher.getInstance();
+        int cost = hasher.getIterations();
+        register("client@example.com", hasher.hashNow("password", cost), "Demo Client", "user");
+        register("vendor@example.com", hasher.hashNow("password", cost), "Demo Vendor", "vendor");
+        register("admin@example.com", hasher.hashNow("password", cost), "System Administrator", "admin");
+    }
+    
+    private static String emailKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    public UserAccount findById(String id) {
+        return id != null ? usersById.get(id) : null;
+    }
+    
+    public UserAccount findByEmail(String email) {
+        return email != null ? usersByEmail.get(emailKey(email)) : null;
+    }
+    
+    public boolean emailExists(String email) {
+        return findByEmail(email) != null;
+    }
+    
+    public int size() {
+        return usersById.size();
+    }
+    
+    /**
+     * Register a new user, returning the account, or null if the email is already taken
+     */
+    public UserAccount register(String email, String passwordHash, String name, String role) {
+        if (email == null || email.trim().isEmpty()) {
+            throw new IllegalArgumentException("Email is required");
+        }
+        UserAccount account = new UserAccount(UUID.randomUUID().toString(), email.trim(), passwordHash,
+            name, role, Instant.now().toString());
+        
+        if (usersByEmail.putIfAbsent(emailKey(email), account) != null) {
+            return null;
+        }
+        usersById.put(account.getId(), account);
+        append(account);
+        return account;
+    }
+    
+    /**
+     * Replace a user's stored password hash
+     */
+    public void updatePassword(UserAccount account, String passwordHash) {
+        account.setPassword(passwordHash);
+        append(account);
+    }
+    
+    private synchronized void append(UserAccount account) {
+        try {
+            if (log == null) {
+                File dir = logFile.getParentFile();
+                if (dir != null && !dir.exists()) {
+                    dir.mkdirs();
+                }
+                log = new BufferedWriter(new FileWriter(logFile, true));
+            }
+            log.write(gson.toJson(account));
+            log.newLine();
+            log.flush();
+        } catch (IOException e) {
+            System.err.println("Error appending to user log: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Load users from the log, returning the number of records read
+     */
+    private int replay() {
+        if (!logFile.exists()) {
+            return 0;
+        }
+        
+        int records = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(logFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                UserAccount account;
+                try {
+                    account = gson.fromJson(line, UserAccount.class);
+                } catch (JsonParseException e) {
+                    // A torn final write from a crash; everything before it is intact
+                    System.err.println("Skipping unreadable user log record: " + e.getMessage());
+                    continue;
+                }
+                if (account == null || account.getId() == null || account.getEmail() == null) {
+                    continue;
+                }
+                records++;
+                usersById.put(account.getId(), account);
+                usersByEmail.put(emailKey(account.getEmail()), account);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading user log: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return records;
+    }
+    
+    /**
+     * Rewrite the log with one record per live user
+     */
+    private synchronized void compact() {
+        File temp = new File(logFile.getPath() + ".tmp");
+        try {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp))) {
+                for (UserAccount account : usersById.values()) {
+                    writer.write(gson.toJson(account));
+                    writer.newLine();
+                }
+            }
+            Files.move(temp.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error compacting user log: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
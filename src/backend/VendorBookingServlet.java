@@ -3,7 +3,9 @@ package com.weddingvendor.backend;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -25,6 +27,9 @@ public class VendorBookingServlet extends HttpServlet {
     private static BookingSystem bookingSystem = new BookingSystem();
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     
+    // Records written between flushes of a streaming export
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+    
     /**
      * @see HttpServlet#HttpServlet()
      */
@@ -36,6 +41,11 @@ public class VendorBookingServlet extends HttpServlet {
      * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse response)
      */
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if ("/_export".equals(request.getPathInfo())) {
+            handleExport(request, response);
+            return;
+        }
+        
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
@@ -90,6 +100,44 @@ public class VendorBookingServlet extends HttpServlet {
         out.flush();
     }
 
+    /**
+     * Stream all bookings as NDJSON, one record per line, optionally limited to
+     * those updated since the ISO-8601 updatedSince parameter (400 if it cannot
+     * be parsed). Records are
+     * written as they are read, so clients can start processing immediately.
+     */
+    private void handleExport(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String updatedSince = request.getParameter("updatedSince");
+        Instant since = null;
+        if (updatedSince != null && !updatedSince.trim().isEmpty()) {
+            try {
+                since = Timestamps.parse(updatedSince);
+            } catch (DateTimeParseException e) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                response.setContentType("application/json");
+                response.setCharacterEncoding("UTF-8");
+                response.getWriter().print(gson.toJson(new ErrorResponse(
+                    "Invalid updatedSince, expected an ISO-8601 date or date-time: " + updatedSince)));
+                return;
+            }
+        }
+        
+        response.setContentType(NdjsonWriter.CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        
+        NdjsonWriter<Booking> writer = new NdjsonWriter<>(response.getWriter(), EXPORT_FLUSH_INTERVAL);
+        try {
+            bookingSystem.exportBookings(since, writer);
+            writer.finish();
+            System.out.println("Exported " + writer.getCount() + " bookings" +
+                               (since != null ? " updated since " + since : ""));
+        } catch (IOException e) {
+            // Most likely the client went away mid-export
+            System.err.println("Booking export aborted after " + writer.getCount() + " records: " + e.getMessage());
+        }
+    }
+    
     /**
      * @see HttpServlet#doPost(HttpServletRequest request, HttpServletResponse response)
      */
@@ -99,6 +147,12 @@ public class VendorBookingServlet extends HttpServlet {
         
         PrintWriter out = response.getWriter();
         
+        if ("/_bulk".equals(request.getPathInfo())) {
+            handleBulkUpsert(request, response, out);
+            out.flush();
+            return;
+        }
+        
         try {
             // Parse booking from request body
             String requestBody = request.getReader().lines().collect(Collectors.joining(System.lineSeparator()));
@@ -122,6 +176,36 @@ public class VendorBookingServlet extends HttpServlet {
         out.flush();
     }
     
+    /**
+     * Create or update many bookings at once from a JSON array or NDJSON body.
+     * The batch is persisted once and the response lists the outcome per item.
+     */
+    private void handleBulkUpsert(HttpServletRequest request, HttpServletResponse response, PrintWriter out) {
+        try {
+            List<Booking> batch = BulkRequestParser.parse(gson, request.getReader(), Booking.class);
+            if (batch.isEmpty()) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                out.print(gson.toJson(new ErrorResponse("No bookings in request body")));
+                return;
+            }
+            
+            // Normalize vendor ID format as for single bookings
+            for (Booking booking : batch) {
+                if (booking != null && booking.getVendorId() != null && !booking.getVendorId().startsWith("vendor")) {
+                    booking.setVendorId("vendor" + booking.getVendorId());
+                }
+            }
+            
+            List<BulkItemResult> results = bookingSystem.bulkUpsertBookings(batch);
+            out.print(gson.toJson(new BulkResponse(results)));
+            System.out.println("Bulk booking request processed " + results.size() + " items");
+        } catch (Exception e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            out.print(gson.toJson(new ErrorResponse("Invalid bulk booking data: " + e.getMessage())));
+            e.printStackTrace();
+        }
+    }
+    
     /**
      * @see HttpServlet#doPut(HttpServletRequest, HttpServletResponse)
      */
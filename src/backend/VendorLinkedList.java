@@ -35,6 +35,33 @@ public class VendorLinkedList {
         size++;
     }
     
+    /**
+     * Append several vendors, walking to the end of the list only once
+     */
+    public void addAll(List<Vendor> newVendors) {
+        if (newVendors.isEmpty()) {
+            return;
+        }
+        
+        VendorNode tail = head;
+        if (tail != null) {
+            while (tail.getNext() != null) {
+                tail = tail.getNext();
+            }
+        }
+        
+        for (Vendor vendor : newVendors) {
+            VendorNode newNode = new VendorNode(vendor);
+            if (tail == null) {
+                head = newNode;
+            } else {
+                tail.setNext(newNode);
+            }
+            tail = newNode;
+            size++;
+        }
+    }
+    
     /**
      * Get vendor at specific index
      */
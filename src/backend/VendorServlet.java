@@ -2,6 +2,8 @@ package com.weddingvendor.backend;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -20,6 +22,14 @@ public class VendorServlet extends HttpServlet {
     private final VendorSystem vendorSystem = new VendorSystem();
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
     
+    // Rendered GET responses, shared by all instances and invalidated on vendor writes
+    private static final ResponseCache responseCache =
+        new ResponseCache(256, 8 * 1024 * 1024, VendorSystem::getVersion);
+    
+    static {
+        VendorSystem.addChangeListener(responseCache::invalidateVendors);
+    }
+    
     /**
      * Handle GET requests
      */
@@ -34,7 +44,21 @@ public class VendorServlet extends HttpServlet {
         System.out.println("VendorServlet: Received GET request to path: " + request.getRequestURI());
         
         String pathInfo = request.getPathInfo();
-        PrintWriter out = response.getWriter();
+        String cacheKey = (pathInfo == null || pathInfo.equals("/"))
+            ? ResponseCache.listKey(request.getParameterMap())
+            : ResponseCache.itemKey(pathInfo.substring(1));
+        
+        ResponseCache.CachedResponse cached = responseCache.get(cacheKey);
+        if (cached != null) {
+            response.setHeader("X-Cache", "HIT");
+            writeCached(request, response, cached);
+            return;
+        }
+        
+        // Render into a buffer so a successful body can be cached as bytes
+        long version = VendorSystem.getVersion();
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
         
         try {
             System.out.println("Processing vendor request with pathInfo: " + pathInfo);
@@ -110,8 +134,39 @@ public class VendorServlet extends HttpServlet {
             out.print(gson.toJson(new ErrorResponse("Internal server error: " + e.getMessage())));
         }
         
-        // Ensure the response is flushed
         out.flush();
+        String body = buffer.toString();
+        response.setHeader("X-Cache", "MISS");
+        
+        if (response.getStatus() == HttpServletResponse.SC_OK) {
+            writeCached(request, response, responseCache.put(cacheKey, body, "application/json", version));
+        } else {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(bytes.length);
+            response.getOutputStream().write(bytes);
+        }
+        
+        // Ensure the response is flushed
+        response.flushBuffer();
+    }
+    
+    /**
+     * Write a cached body, using the pre-gzipped copy when the client accepts it
+     */
+    private void writeCached(HttpServletRequest request, HttpServletResponse response,
+                             ResponseCache.CachedResponse cached) throws IOException {
+        byte[] body = cached.getBody();
+        response.setHeader("Vary", "Accept-Encoding");
+        
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (cached.getGzipBody() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = cached.getGzipBody();
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        
+        response.setContentType(cached.getContentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
     }
     
     /**
@@ -124,6 +179,11 @@ public class VendorServlet extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
+        if ("/_bulk".equals(request.getPathInfo())) {
+            handleBulkUpsert(request, response);
+            return;
+        }
+        
         StringBuilder buffer = new StringBuilder();
         String line;
         try {
@@ -145,6 +205,30 @@ public class VendorServlet extends HttpServlet {
         }
     }
     
+    /**
+     * Create or update many vendors at once from a JSON array or NDJSON body.
+     * The batch is persisted once and the response lists the outcome per item.
+     */
+    private void handleBulkUpsert(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PrintWriter out = response.getWriter();
+        
+        try {
+            List<Vendor> batch = BulkRequestParser.parse(gson, request.getReader(), Vendor.class);
+            if (batch.isEmpty()) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                out.print(gson.toJson(new ErrorResponse("No vendors in request body")));
+                return;
+            }
+            
+            List<BulkItemResult> results = vendorSystem.bulkUpsertVendors(batch);
+            System.out.println("Bulk vendor request processed " + results.size() + " items");
+            out.print(gson.toJson(new BulkResponse(results)));
+        } catch (Exception e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            out.print(gson.toJson(new ErrorResponse("Invalid bulk vendor data: " + e.getMessage())));
+        }
+    }
+    
     /**
      * Handle PUT requests to update a vendor
      */
@@ -2,8 +2,20 @@ package com.weddingvendor.backend;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 /**
  * System to manage vendors using the custom LinkedList implementation with file persistence
@@ -13,6 +25,15 @@ public class VendorSystem {
     private static final String DATA_FILE = "data/vendors.dat";
     private static boolean isInitialized = false;
     
+    // Bumped on every write so readers can detect data changed underneath them
+    private static final AtomicLong version = new AtomicLong();
+    
+    // Guards the linked list; writers (including whole bulk batches) take the write lock
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Notified with the changed vendor ids after every add, update, delete or bulk batch
+    private static final List<Consumer<Collection<String>>> changeListeners = new CopyOnWriteArrayList<>();
+    
     // Initialize with sample data or load from file
     public VendorSystem() {
         if (!isInitialized) {
@@ -224,11 +245,44 @@ public class VendorSystem {
         }
     }
     
+    /**
+     * Register a listener that is called with the changed vendor ids after
+     * each write; a bulk batch is reported as one call
+     */
+    public static void addChangeListener(Consumer<Collection<String>> listener) {
+        changeListeners.add(listener);
+    }
+    
+    /**
+     * Remove a previously registered change listener
+     */
+    public static void removeChangeListener(Consumer<Collection<String>> listener) {
+        changeListeners.remove(listener);
+    }
+    
+    /**
+     * Current data version, incremented on every write
+     */
+    public static long getVersion() {
+        return version.get();
+    }
+    
+    private static void fireChanged(String vendorId) {
+        fireChanged(Collections.singleton(vendorId));
+    }
+    
+    private static void fireChanged(Collection<String> vendorIds) {
+        version.incrementAndGet();
+        for (Consumer<Collection<String>> listener : changeListeners) {
+            listener.accept(vendorIds);
+        }
+    }
+    
     /**
      * Get all vendors
      */
     public List<Vendor> getAllVendors() {
-        List<Vendor> result = vendors.toList();
+        List<Vendor> result = snapshot();
         System.out.println("getAllVendors: Retrieved " + result.size() + " vendors");
         return result;
     }
@@ -237,7 +291,24 @@ public class VendorSystem {
      * Get vendor by ID
      */
     public Vendor getVendorById(String id) {
-        return vendors.getById(id);
+        lock.readLock().lock();
+        try {
+            return vendors.getById(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Copy the current vendors under the read lock
+     */
+    private static List<Vendor> snapshot() {
+        lock.readLock().lock();
+        try {
+            return vendors.toList();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
     /**
@@ -247,8 +318,14 @@ public class VendorSystem {
         if (vendor.getId() == null || vendor.getId().isEmpty()) {
             vendor.setId("vendor" + UUID.randomUUID().toString().substring(0, 8));
         }
-        vendors.add(vendor);
-        saveToFile();
+        lock.writeLock().lock();
+        try {
+            vendors.add(vendor);
+            saveToFile();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fireChanged(vendor.getId());
         return vendor.getId();
     }
     
@@ -256,9 +333,18 @@ public class VendorSystem {
      * Update a vendor
      */
     public boolean updateVendor(String id, Vendor vendor) {
-        boolean updated = vendors.updateById(id, vendor);
+        boolean updated;
+        lock.writeLock().lock();
+        try {
+            updated = vendors.updateById(id, vendor);
+            if (updated) {
+                saveToFile();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
         if (updated) {
-            saveToFile();
+            fireChanged(id);
         }
         return updated;
     }
@@ -267,20 +353,112 @@ public class VendorSystem {
      * Delete a vendor
      */
     public boolean deleteVendor(String id) {
-        boolean removed = vendors.removeById(id);
+        boolean removed;
+        lock.writeLock().lock();
+        try {
+            removed = vendors.removeById(id);
+            if (removed) {
+                saveToFile();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
         if (removed) {
-            saveToFile();
+            fireChanged(id);
         }
         return removed;
     }
     
+    /**
+     * Create or update a batch of vendors. Vendors whose id already exists are
+     * replaced, the rest are appended. The whole batch is applied under one
+     * write lock and the file is rewritten once, however many items there are.
+     * Null entries (items that could not be parsed) are reported as failures.
+     */
+    public List<BulkItemResult> bulkUpsertVendors(List<Vendor> batch) {
+        List<BulkItemResult> results = new ArrayList<>(batch.size());
+        // Creates are held back until the end so the list is appended to once;
+        // an id repeated within the batch replaces its pending create
+        Map<String, Vendor> toAdd = new LinkedHashMap<>();
+        Set<String> changedIds = new LinkedHashSet<>();
+        
+        lock.writeLock().lock();
+        try {
+            Set<String> existingIds = new HashSet<>();
+            for (Vendor vendor : vendors.toList()) {
+                existingIds.add(vendor.getId());
+            }
+            
+            for (int i = 0; i < batch.size(); i++) {
+                Vendor vendor = batch.get(i);
+                String error = validate(vendor);
+                if (error != null) {
+                    results.add(BulkItemResult.failed(i, vendor != null ? vendor.getId() : null, error));
+                    continue;
+                }
+                
+                if (vendor.getId() == null || vendor.getId().isEmpty()) {
+                    vendor.setId("vendor" + UUID.randomUUID().toString().substring(0, 8));
+                }
+                
+                if (toAdd.containsKey(vendor.getId())) {
+                    toAdd.put(vendor.getId(), vendor);
+                    results.add(BulkItemResult.updated(i, vendor.getId()));
+                } else if (existingIds.contains(vendor.getId())) {
+                    if (!vendors.updateById(vendor.getId(), vendor)) {
+                        results.add(BulkItemResult.failed(i, vendor.getId(), "Vendor could not be updated"));
+                        continue;
+                    }
+                    results.add(BulkItemResult.updated(i, vendor.getId()));
+                } else {
+                    toAdd.put(vendor.getId(), vendor);
+                    results.add(BulkItemResult.created(i, vendor.getId()));
+                }
+                changedIds.add(vendor.getId());
+            }
+            
+            vendors.addAll(new ArrayList<>(toAdd.values()));
+            if (!changedIds.isEmpty()) {
+                saveToFile();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        if (!changedIds.isEmpty()) {
+            fireChanged(changedIds);
+        }
+        long rejected = results.stream().filter(BulkItemResult::isFailed).count();
+        System.out.println("Bulk upsert: " + changedIds.size() + " vendors changed, " + rejected + " items rejected");
+        return results;
+    }
+    
+    /**
+     * Validate a vendor before it is stored, returning an error message or null
+     */
+    private static String validate(Vendor vendor) {
+        if (vendor == null) {
+            return "Item could not be parsed";
+        }
+        if (vendor.getName() == null || vendor.getName().trim().isEmpty()) {
+            return "Vendor name is required";
+        }
+        if (vendor.getCategory() == null || vendor.getCategory().trim().isEmpty()) {
+            return "Vendor category is required";
+        }
+        if (vendor.getMinPrice() < 0 || vendor.getMaxPrice() < 0) {
+            return "Prices cannot be negative";
+        }
+        return null;
+    }
+    
     /**
      * Get vendors sorted by price (ascending)
      */
     public List<Vendor> getVendorsSortedByPrice() {
         // Create a copy of the vendor list
         VendorLinkedList sortedList = new VendorLinkedList();
-        for (Vendor vendor : vendors.toList()) {
+        for (Vendor vendor : snapshot()) {
             sortedList.add(vendor);
         }
         
@@ -296,7 +474,7 @@ public class VendorSystem {
     public List<Vendor> getVendorsSortedByPriceDesc() {
         // Create a copy of the vendor list
         VendorLinkedList sortedList = new VendorLinkedList();
-        for (Vendor vendor : vendors.toList()) {
+        for (Vendor vendor : snapshot()) {
             sortedList.add(vendor);
         }
         
@@ -312,7 +490,7 @@ public class VendorSystem {
     public List<Vendor> getVendorsSortedByRating() {
         // Create a copy of the vendor list
         VendorLinkedList sortedList = new VendorLinkedList();
-        for (Vendor vendor : vendors.toList()) {
+        for (Vendor vendor : snapshot()) {
             sortedList.add(vendor);
         }
         
@@ -328,7 +506,7 @@ public class VendorSystem {
     public List<Vendor> getVendorsByCategory(String category) {
         VendorLinkedList categoryList = new VendorLinkedList();
         
-        for (Vendor vendor : vendors.toList()) {
+        for (Vendor vendor : snapshot()) {
             if (vendor.getCategory().equalsIgnoreCase(category)) {
                 categoryList.add(vendor);
             }
@@ -343,7 +521,7 @@ public class VendorSystem {
     public List<Vendor> getVendorsByLocation(String location) {
         VendorLinkedList locationList = new VendorLinkedList();
         
-        for (Vendor vendor : vendors.toList()) {
+        for (Vendor vendor : snapshot()) {
             if (vendor.getLocation().contains(location)) {
                 locationList.add(vendor);
             }
@@ -358,7 +536,7 @@ public class VendorSystem {
     public List<Vendor> searchVendors(String query) {
         VendorLinkedList searchResults = new VendorLinkedList();
         
-        for (Vendor vendor : vendors.toList()) {
+        for (Vendor vendor : snapshot()) {
             if (vendor.getName().toLowerCase().contains(query.toLowerCase()) || 
                 vendor.getDescription().toLowerCase().contains(query.toLowerCase())) {
                 searchResults.add(vendor);
@@ -1,8 +1,33 @@
 package com.weddingvendor.backend;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 /**
@@ -42,11 +67,12 @@ public class WeddingVendorSystem {
     private static void initialize() {
         bookingSystem = new BookingSystem();
         authService = new AuthenticationService();
-        paymentProcessor = new PaymentProcessor();
+        paymentProcessor = new PaymentProcessor(bookingSystem);
         notificationService = new NotificationService();
         messagingService = new MessagingService();
-        vendorService = new VendorService();
-        reviewSystem = new ReviewSystem();
+        VendorLeaderboard leaderboard = new VendorLeaderboard();
+        vendorService = new VendorService(leaderboard);
+        reviewSystem = new ReviewSystem(leaderboard);
         dataPersistenceManager = new DataPersistenceManager();
         
         System.out.println("Wedding Vendor System initialized successfully");
@@ -54,7 +80,8 @@ public class WeddingVendorSystem {
     
     private static void registerSampleUsers() {
         User client = new Client("client@example.com", "password", "Demo Client");
-        User vendor = new Vendor("vendor@example.com", "password", "Elegant Moments Photography");
+        User vendor = new Vendor("vendor@example.com", "password", "Elegant Moments Photography",
+            "Photography", "Colombo");
         User admin = new Admin("admin@example.com", "admin123", "Admin User");
         
         authService.registerUser(client);
@@ -204,16 +231,35 @@ class Client extends User {
 class Vendor extends User {
     private String businessName;
     private String description;
+    private String category;
+    private String location;
     private List<Service> services;
     private List<String> bookingIds;
     
     public Vendor(String email, String password, String name) {
+        this(email, password, name, null, null);
+    }
+    
+    public Vendor(String email, String password, String name, String category, String location) {
         super(email, password, name);
         this.businessName = name;
+        this.category = category;
+        this.location = location;
         this.services = new ArrayList<>();
         this.bookingIds = new ArrayList<>();
     }
     
+    // Profile fields are indexed by VendorService; change them through
+    // VendorService.updateVendorProfile once the vendor has been added
+    public String getBusinessName() { return businessName; }
+    void setBusinessName(String businessName) { this.businessName = businessName; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public String getCategory() { return category; }
+    void setCategory(String category) { this.category = category; }
+    public String getLocation() { return location; }
+    void setLocation(String location) { this.location = location; }
+    
     public void addService(Service service) {
         services.add(service);
     }
@@ -251,14 +297,20 @@ class Admin extends User {
 }
 
 class AuthenticationService {
+    private static final long TOKEN_TTL_MILLIS = 24 * 60 * 60 * 1000L;
+    
     private Map<String, User> usersByEmail;
     private Map<String, User> usersById;
-    private Map<String, String> activeTokens;
+    private SessionStore activeTokens;
     
     public AuthenticationService() {
+        this(new InMemorySessionStore());
+    }
+    
+    public AuthenticationService(SessionStore sessionStore) {
         this.usersByEmail = new HashMap<>();
         this.usersById = new HashMap<>();
-        this.activeTokens = new HashMap<>();
+        this.activeTokens = sessionStore;
     }
     
     public void registerUser(User user) {
@@ -274,20 +326,18 @@ class AuthenticationService {
     public String createAuthToken(String email) {
         User user = usersByEmail.get(email);
         if (user != null) {
-            String token = UUID.randomUUID().toString();
-            activeTokens.put(token, user.getId());
-            return token;
+            return activeTokens.createSession(user.getId(), TOKEN_TTL_MILLIS);
         }
         return null;
     }
     
     public User getUserByToken(String token) {
-        String userId = activeTokens.get(token);
+        String userId = activeTokens.getUserId(token);
         return userId != null ? usersById.get(userId) : null;
     }
     
     public void invalidateToken(String token) {
-        activeTokens.remove(token);
+        activeTokens.invalidate(token);
     }
     
     public User getUserByEmail(String email) {
@@ -305,11 +355,11 @@ class AuthenticationService {
     }
     
     public void logoutAllSessions(String userId) {
-        activeTokens.entrySet().removeIf(entry -> entry.getValue().equals(userId));
+        activeTokens.invalidateAll(userId);
     }
     
     public boolean isTokenValid(String token) {
-        return activeTokens.containsKey(token);
+        return activeTokens.isValid(token);
     }
 }
 
@@ -402,15 +452,426 @@ class Service {
     public void setActive(boolean active) { isActive = active; }
 }
 
+/**
+ * Criteria for BookingSystem.searchBookings. Unset criteria match every
+ * booking; set ones must all match. Date and amount ranges are inclusive
+ * of from/minAmount and exclusive of to/maxAmount.
+ */
+class BookingQuery {
+    private BookingStatus status;
+    private PaymentStatus paymentStatus;
+    private String clientId;
+    private String vendorId;
+    private YearMonth month;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Double minAmount;
+    private Double maxAmount;
+    
+    public BookingQuery status(BookingStatus status) { this.status = status; return this; }
+    public BookingQuery paymentStatus(PaymentStatus paymentStatus) { this.paymentStatus = paymentStatus; return this; }
+    public BookingQuery clientId(String clientId) { this.clientId = clientId; return this; }
+    public BookingQuery vendorId(String vendorId) { this.vendorId = vendorId; return this; }
+    public BookingQuery month(YearMonth month) { this.month = month; return this; }
+    public BookingQuery eventBetween(LocalDateTime from, LocalDateTime to) { this.from = from; this.to = to; return this; }
+    public BookingQuery amountBetween(Double minAmount, Double maxAmount) { this.minAmount = minAmount; this.maxAmount = maxAmount; return this; }
+    
+    public BookingStatus getStatus() { return status; }
+    public PaymentStatus getPaymentStatus() { return paymentStatus; }
+    public String getClientId() { return clientId; }
+    public String getVendorId() { return vendorId; }
+    public YearMonth getMonth() { return month; }
+    public LocalDateTime getFrom() { return from; }
+    public LocalDateTime getTo() { return to; }
+    public Double getMinAmount() { return minAmount; }
+    public Double getMaxAmount() { return maxAmount; }
+    
+    /**
+     * Build a query from string criteria: status, paymentStatus, clientId,
+     * vendorId, month (yyyy-MM), from and to (ISO date or date-time),
+     * minAmount and maxAmount. Unknown keys and null values are ignored.
+     * Returns null if a value cannot be parsed, or an amount is not a finite
+     * number, since no booking can match it.
+     */
+    public static BookingQuery fromCriteria(Map<String, String> criteria) {
+        BookingQuery query = new BookingQuery();
+        try {
+            for (Map.Entry<String, String> entry : criteria.entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                String value = entry.getValue().trim();
+                switch (entry.getKey()) {
+                    case "status":
+                        query.status = BookingStatus.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "paymentStatus":
+                        query.paymentStatus = PaymentStatus.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "clientId":
+                        query.clientId = value;
+                        break;
+                    case "vendorId":
+                        query.vendorId = value;
+                        break;
+                    case "month":
+                        query.month = YearMonth.parse(value);
+                        break;
+                    case "from":
+                        query.from = parseDate(value);
+                        break;
+                    case "to":
+                        query.to = parseDate(value);
+                        break;
+                    case "minAmount":
+                        query.minAmount = parseAmount(value);
+                        break;
+                    case "maxAmount":
+                        query.maxAmount = parseAmount(value);
+                        break;
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return null;
+        }
+        return query;
+    }
+    
+    private static LocalDateTime parseDate(String value) {
+        return value.length() <= 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+    }
+    
+    private static Double parseAmount(String value) {
+        double amount = Double.parseDouble(value);
+        if (!Double.isFinite(amount)) {
+            throw new NumberFormatException("Amount must be a finite number: " + value);
+        }
+        return amount;
+    }
+}
+
+/**
+ * Set of booking ordinals that picks its representation by density, like a
+ * Roaring container: a sorted int array while it holds few members, a BitSet
+ * once it holds more than 1 in 32 of the ordinals up to its highest one. An
+ * array costs 4 bytes per member and a BitSet one bit per ordinal up to the
+ * highest, so each form is used where it is the smaller one.
+ */
+class OrdinalSet {
+    private static final int MIN_BITMAP_SIZE = 64;
+    
+    private int[] members = new int[2];
+    private BitSet bitmap;
+    private int size;
+    
+    public void add(int ordinal) {
+        if (bitmap != null) {
+            if (!bitmap.get(ordinal)) {
+                bitmap.set(ordinal);
+                size++;
+            }
+            return;
+        }
+        int at = Arrays.binarySearch(members, 0, size, ordinal);
+        if (at >= 0) {
+            return;
+        }
+        at = -at - 1;
+        if (size == members.length) {
+            members = Arrays.copyOf(members, Math.max(2, size * 2));
+        }
+        System.arraycopy(members, at, members, at + 1, size - at);
+        members[at] = ordinal;
+        size++;
+        if (size > MIN_BITMAP_SIZE && size * 32L > members[size - 1] + 1L) {
+            bitmap = new BitSet(members[size - 1] + 1);
+            for (int i = 0; i < size; i++) {
+                bitmap.set(members[i]);
+            }
+            members = null;
+        }
+    }
+    
+    public void remove(int ordinal) {
+        if (bitmap != null) {
+            if (bitmap.get(ordinal)) {
+                bitmap.clear(ordinal);
+                size--;
+                // Back to an array once well below the switch-over point, so
+                // adds and removes around it do not convert back and forth
+                if (size * 64L < bitmap.length() && size <= MIN_BITMAP_SIZE * 4) {
+                    members = bitmap.stream().toArray();
+                    bitmap = null;
+                }
+            }
+            return;
+        }
+        int at = Arrays.binarySearch(members, 0, size, ordinal);
+        if (at >= 0) {
+            System.arraycopy(members, at + 1, members, at, size - at - 1);
+            size--;
+        }
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Add every member to the target
+     */
+    public void orInto(BitSet target) {
+        if (bitmap != null) {
+            target.or(bitmap);
+        } else {
+            for (int i = 0; i < size; i++) {
+                target.set(members[i]);
+            }
+        }
+    }
+    
+    /**
+     * Clear every bit of the target that is not a member
+     */
+    public void andInto(BitSet target) {
+        if (bitmap != null) {
+            target.and(bitmap);
+            return;
+        }
+        BitSet kept = new BitSet();
+        for (int i = 0; i < size; i++) {
+            if (target.get(members[i])) {
+                kept.set(members[i]);
+            }
+        }
+        target.clear();
+        target.or(kept);
+    }
+}
+
+/**
+ * Bitmap indexes over bookings for multi-criteria search.
+ *
+ * Each booking gets a dense ordinal (0, 1, 2... in creation order). Every
+ * indexed value - status, payment status, client, vendor, event month and
+ * amount - maps to an OrdinalSet of the ordinals that have it, so a search
+ * is an AND of a few sets into one BitSet followed by one pass over the
+ * surviving bits. Date ranges OR together the month sets they cover and
+ * check exact dates only for bookings in the two boundary months; amount
+ * ranges OR the sets of a sorted amount range, or check the remaining
+ * candidates directly when there are fewer of them than sets in the range.
+ *
+ * Clients and amounts are nearly unique, so most of their sets hold one or
+ * two ordinals. A plain BitSet per key would be sized to its highest
+ * ordinal, making the index grow with the square of the booking count;
+ * OrdinalSet keeps those small sets as arrays and only uses a bitmap for
+ * the dense ones (statuses, months, busy vendors), so memory stays linear.
+ *
+ * The values each ordinal was indexed under are remembered so that a
+ * changed booking can be moved between sets. Writes take the write lock;
+ * searches share the read lock.
+ */
+class BookingQueryIndex {
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<Booking> byOrdinal = new ArrayList<>();
+    private final List<Object[]> indexedValues = new ArrayList<>();
+    
+    private final Map<BookingStatus, OrdinalSet> byStatus = new EnumMap<>(BookingStatus.class);
+    private final Map<PaymentStatus, OrdinalSet> byPaymentStatus = new EnumMap<>(PaymentStatus.class);
+    private final Map<String, OrdinalSet> byClient = new HashMap<>();
+    private final Map<String, OrdinalSet> byVendor = new HashMap<>();
+    private final NavigableMap<YearMonth, OrdinalSet> byMonth = new TreeMap<>();
+    private final NavigableMap<Double, OrdinalSet> byAmount = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Positions in indexedValues entries
+    private static final int STATUS = 0, PAYMENT_STATUS = 1, CLIENT = 2, VENDOR = 3, MONTH = 4, AMOUNT = 5;
+    
+    /**
+     * Index a new booking, or re-index one whose fields changed
+     */
+    public void update(Booking booking) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(booking.getId());
+            if (ordinal == null) {
+                ordinal = byOrdinal.size();
+                ordinals.put(booking.getId(), ordinal);
+                byOrdinal.add(booking);
+                indexedValues.add(new Object[6]);
+            }
+            Object[] previous = indexedValues.get(ordinal);
+            LocalDateTime eventDate = booking.getEventDate();
+            Object[] current = {
+                booking.getStatus(), booking.getPaymentStatus(), booking.getClientId(), booking.getVendorId(),
+                eventDate != null ? YearMonth.from(eventDate) : null, booking.getAmount()
+            };
+            move(byStatus, previous[STATUS], current[STATUS], ordinal);
+            move(byPaymentStatus, previous[PAYMENT_STATUS], current[PAYMENT_STATUS], ordinal);
+            move(byClient, previous[CLIENT], current[CLIENT], ordinal);
+            move(byVendor, previous[VENDOR], current[VENDOR], ordinal);
+            move(byMonth, previous[MONTH], current[MONTH], ordinal);
+            move(byAmount, previous[AMOUNT], current[AMOUNT], ordinal);
+            indexedValues.set(ordinal, current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public List<Booking> search(BookingQuery query) {
+        lock.readLock().lock();
+        try {
+            BitSet result = new BitSet(byOrdinal.size());
+            result.set(0, byOrdinal.size());
+            if (query.getStatus() != null) {
+                restrict(result, byStatus, query.getStatus());
+            }
+            if (query.getPaymentStatus() != null) {
+                restrict(result, byPaymentStatus, query.getPaymentStatus());
+            }
+            if (query.getClientId() != null) {
+                restrict(result, byClient, query.getClientId());
+            }
+            if (query.getVendorId() != null) {
+                restrict(result, byVendor, query.getVendorId());
+            }
+            if (query.getMonth() != null) {
+                restrict(result, byMonth, query.getMonth());
+            }
+            if (query.getMinAmount() != null || query.getMaxAmount() != null) {
+                restrictToAmounts(result, query.getMinAmount(), query.getMaxAmount());
+            }
+            if (query.getFrom() != null || query.getTo() != null) {
+                restrictToDates(result, query.getFrom(), query.getTo());
+            }
+            
+            List<Booking> matches = new ArrayList<>(result.cardinality());
+            for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                matches.add(byOrdinal.get(i));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void restrictToAmounts(BitSet result, Double min, Double max) {
+        if (min != null && max != null && min >= max) {
+            result.clear();
+            return;
+        }
+        NavigableMap<Double, OrdinalSet> range = min == null ? byAmount.headMap(max, false)
+            : max == null ? byAmount.tailMap(min, true) : byAmount.subMap(min, true, max, false);
+        
+        // Amounts are nearly unique, so a wide range is many sets; once the
+        // other criteria leave few candidates, checking them directly is cheaper
+        if (result.cardinality() < range.size()) {
+            for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                double amount = (Double) indexedValues.get(i)[AMOUNT];
+                if ((min != null && amount < min) || (max != null && amount >= max)) {
+                    result.clear(i);
+                }
+            }
+        } else {
+            result.and(union(range.values()));
+        }
+    }
+    
+    private void restrictToDates(BitSet result, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            result.clear();
+            return;
+        }
+        YearMonth first = from != null ? YearMonth.from(from) : null;
+        YearMonth last = to != null ? YearMonth.from(to) : null;
+        NavigableMap<YearMonth, OrdinalSet> months = byMonth;
+        if (first != null) {
+            months = months.tailMap(first, true);
+        }
+        if (last != null) {
+            months = months.headMap(last, true);
+        }
+        result.and(union(months.values()));
+        
+        // Whole months in between match as they are; check the boundary months exactly
+        BitSet boundary = new BitSet();
+        if (first != null && byMonth.containsKey(first)) {
+            byMonth.get(first).orInto(boundary);
+        }
+        if (last != null && byMonth.containsKey(last)) {
+            byMonth.get(last).orInto(boundary);
+        }
+        boundary.and(result);
+        for (int i = boundary.nextSetBit(0); i >= 0; i = boundary.nextSetBit(i + 1)) {
+            LocalDateTime eventDate = byOrdinal.get(i).getEventDate();
+            if (eventDate == null || (from != null && eventDate.isBefore(from)) || (to != null && !eventDate.isBefore(to))) {
+                result.clear(i);
+            }
+        }
+    }
+    
+    private static BitSet union(Collection<OrdinalSet> sets) {
+        BitSet union = new BitSet();
+        for (OrdinalSet set : sets) {
+            set.orInto(union);
+        }
+        return union;
+    }
+    
+    private static <K> void restrict(BitSet result, Map<K, OrdinalSet> index, K key) {
+        OrdinalSet set = index.get(key);
+        if (set != null) {
+            set.andInto(result);
+        } else {
+            result.clear();
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K> void move(Map<K, OrdinalSet> index, Object previous, Object current, int ordinal) {
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        if (previous != null) {
+            OrdinalSet set = index.get(previous);
+            set.remove(ordinal);
+            if (set.isEmpty()) {
+                index.remove(previous);
+            }
+        }
+        if (current != null) {
+            index.computeIfAbsent((K) current, k -> new OrdinalSet()).add(ordinal);
+        }
+    }
+}
+
 class BookingSystem {
     private Map<String, Booking> bookings;
     private Map<String, List<String>> clientBookings;
     private Map<String, List<String>> vendorBookings;
     
+    // Per-user event calendars: event date -> ids of active (not cancelled)
+    // bookings on that date, so upcoming and date-window queries are range
+    // views. scheduledAs remembers the client, vendor and date each booking
+    // was filed under, since callers change Booking objects in place before
+    // calling updateBooking.
+    private Map<String, NavigableMap<LocalDateTime, Set<String>>> clientSchedule;
+    private Map<String, NavigableMap<LocalDateTime, Set<String>>> vendorSchedule;
+    private Map<String, ScheduleEntry> scheduledAs;
+    private BookingQueryIndex queryIndex;
+    
     public BookingSystem() {
         this.bookings = new ConcurrentHashMap<>();
         this.clientBookings = new ConcurrentHashMap<>();
         this.vendorBookings = new ConcurrentHashMap<>();
+        this.clientSchedule = new ConcurrentHashMap<>();
+        this.vendorSchedule = new ConcurrentHashMap<>();
+        this.scheduledAs = new ConcurrentHashMap<>();
+        this.queryIndex = new BookingQueryIndex();
     }
     
     public String createBooking(Booking booking) {
@@ -424,6 +885,7 @@ class BookingSystem {
         vendorBookings.computeIfAbsent(booking.getVendorId(), k -> new ArrayList<>())
                       .add(booking.getId());
         
+        reschedule(booking);
         return booking.getId();
     }
     
@@ -447,6 +909,17 @@ class BookingSystem {
     
     public void updateBooking(Booking booking) {
         bookings.put(booking.getId(), booking);
+        reschedule(booking);
+    }
+    
+    public boolean rescheduleBooking(String bookingId, LocalDateTime eventDate) {
+        Booking booking = bookings.get(bookingId);
+        if (booking == null) {
+            return false;
+        }
+        booking.setEventDate(eventDate);
+        reschedule(booking);
+        return true;
     }
     
     public void cancelBooking(String bookingId) {
@@ -454,53 +927,141 @@ class BookingSystem {
         if (booking != null) {
             booking.setStatus(BookingStatus.CANCELLED);
             bookings.put(bookingId, booking);
+            reschedule(booking);
         }
     }
     
+    /**
+     * Search with string criteria; see BookingQuery.fromCriteria for the keys
+     */
     public List<Booking> searchBookings(Map<String, String> criteria) {
-        return bookings.values().stream()
-            .filter(booking -> matchesCriteria(booking, criteria))
-            .collect(Collectors.toList());
+        BookingQuery query = BookingQuery.fromCriteria(criteria);
+        return query != null ? queryIndex.search(query) : new ArrayList<>();
     }
     
-    private boolean matchesCriteria(Booking booking, Map<String, String> criteria) {
-        for (Map.Entry<String, String> entry : criteria.entrySet()) {
-            switch (entry.getKey()) {
-                case "status":
-                    if (!booking.getStatus().toString().equals(entry.getValue())) {
-                        return false;
-                    }
-                    break;
-                case "clientId":
-                    if (!booking.getClientId().equals(entry.getValue())) {
-                        return false;
-                    }
-                    break;
-                case "vendorId":
-                    if (!booking.getVendorId().equals(entry.getValue())) {
-                        return false;
-                    }
-                    break;
-                // Add more criteria as needed
+    public List<Booking> searchBookings(BookingQuery query) {
+        return queryIndex.search(query);
+    }
+    
+    /**
+     * The user's active bookings with events after now, soonest first
+     */
+    public List<Booking> getUpcomingBookings(String userId, boolean isVendor) {
+        NavigableMap<LocalDateTime, Set<String>> schedule = (isVendor ? vendorSchedule : clientSchedule).get(userId);
+        if (schedule == null) {
+            return new ArrayList<>();
+        }
+        return toBookings(schedule.tailMap(LocalDateTime.now(), false));
+    }
+    
+    /**
+     * The user's active bookings with events in [from, to), soonest first.
+     * A null bound leaves that end of the window open, as in BookingQuery.
+     */
+    public List<Booking> getBookingsBetween(String userId, boolean isVendor, LocalDateTime from, LocalDateTime to) {
+        NavigableMap<LocalDateTime, Set<String>> schedule = (isVendor ? vendorSchedule : clientSchedule).get(userId);
+        if (schedule == null || (from != null && to != null && !from.isBefore(to))) {
+            return new ArrayList<>();
+        }
+        NavigableMap<LocalDateTime, Set<String>> window = schedule;
+        if (from != null) {
+            window = window.tailMap(from, true);
+        }
+        if (to != null) {
+            window = window.headMap(to, false);
+        }
+        return toBookings(window);
+    }
+    
+    private List<Booking> toBookings(NavigableMap<LocalDateTime, Set<String>> window) {
+        List<Booking> result = new ArrayList<>();
+        for (Set<String> bookingIds : window.values()) {
+            for (String bookingId : bookingIds) {
+                Booking booking = bookings.get(bookingId);
+                if (booking != null) {
+                    result.add(booking);
+                }
             }
         }
-        return true;
+        return result;
     }
     
-    public List<Booking> getUpcomingBookings(String userId, boolean isVendor) {
-        List<String> bookingIds;
-        if (isVendor) {
-            bookingIds = vendorBookings.getOrDefault(userId, new ArrayList<>());
-        } else {
-            bookingIds = clientBookings.getOrDefault(userId, new ArrayList<>());
+    /**
+     * Bring a booking's search index and calendar entries in line with its
+     * fields: cancelled bookings and bookings without a date are unlisted
+     * from the calendars
+     */
+    private synchronized void reschedule(Booking booking) {
+        queryIndex.update(booking);
+        
+        String bookingId = booking.getId();
+        ScheduleEntry previous = scheduledAs.get(bookingId);
+        ScheduleEntry current = booking.getStatus() != BookingStatus.CANCELLED && booking.getEventDate() != null
+            ? new ScheduleEntry(booking.getClientId(), booking.getVendorId(), booking.getEventDate())
+            : null;
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+        if (previous != null) {
+            unlist(clientSchedule, previous.clientId, previous.eventDate, bookingId);
+            unlist(vendorSchedule, previous.vendorId, previous.eventDate, bookingId);
+            scheduledAs.remove(bookingId);
+        }
+        if (current != null) {
+            list(clientSchedule, current.clientId, current.eventDate, bookingId);
+            list(vendorSchedule, current.vendorId, current.eventDate, bookingId);
+            scheduledAs.put(bookingId, current);
+        }
+    }
+    
+    /**
+     * Where a booking is filed in the calendars
+     */
+    private static final class ScheduleEntry {
+        final String clientId;
+        final String vendorId;
+        final LocalDateTime eventDate;
+        
+        ScheduleEntry(String clientId, String vendorId, LocalDateTime eventDate) {
+            this.clientId = clientId;
+            this.vendorId = vendorId;
+            this.eventDate = eventDate;
         }
         
-        LocalDateTime now = LocalDateTime.now();
-        return bookingIds.stream()
-            .map(bookings::get)
-            .filter(booking -> booking.getEventDate().isAfter(now))
-            .sorted(Comparator.comparing(Booking::getEventDate))
-            .collect(Collectors.toList());
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ScheduleEntry)) {
+                return false;
+            }
+            ScheduleEntry other = (ScheduleEntry) o;
+            return Objects.equals(clientId, other.clientId) && Objects.equals(vendorId, other.vendorId)
+                && eventDate.equals(other.eventDate);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(clientId, vendorId, eventDate);
+        }
+    }
+    
+    private static void list(Map<String, NavigableMap<LocalDateTime, Set<String>>> schedules, String userId,
+                             LocalDateTime eventDate, String bookingId) {
+        if (userId != null) {
+            schedules.computeIfAbsent(userId, k -> new ConcurrentSkipListMap<>())
+                     .computeIfAbsent(eventDate, k -> ConcurrentHashMap.newKeySet())
+                     .add(bookingId);
+        }
+    }
+    
+    private static void unlist(Map<String, NavigableMap<LocalDateTime, Set<String>>> schedules, String userId,
+                               LocalDateTime eventDate, String bookingId) {
+        NavigableMap<LocalDateTime, Set<String>> schedule = userId != null ? schedules.get(userId) : null;
+        if (schedule != null) {
+            schedule.computeIfPresent(eventDate, (date, ids) -> {
+                ids.remove(bookingId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
     }
     
     public Map<String, Integer> getBookingStatistics(String vendorId) {
@@ -601,245 +1162,1416 @@ class PayPalGateway implements PaymentGateway {
     }
 }
 
-class PaymentProcessor {
-    private Map<PaymentMethod, PaymentGateway> gateways;
-    private Map<String, Payment> payments;
-    
-    public PaymentProcessor() {
-        this.gateways = new HashMap<>();
-        this.gateways.put(PaymentMethod.CREDIT_CARD, new StripeGateway());
-        this.gateways.put(PaymentMethod.PAYPAL, new PayPalGateway());
-        this.payments = new HashMap<>();
-    }
-    
-    public boolean processPayment(Payment payment) {
-        PaymentGateway gateway = gateways.get(payment.getPaymentMethod());
-        if (gateway != null && gateway.processPayment(payment)) {
-            payments.put(payment.getId(), payment);
-            return true;
-        }
-        return false;
-    }
-    
-    public boolean refundPayment(String paymentId) {
-        Payment payment = payments.get(paymentId);
-        if (payment != null) {
-            PaymentGateway gateway = gateways.get(payment.getPaymentMethod());
-            return gateway != null && gateway.refundPayment(payment);
-        }
-        return false;
+/**
+ * Outcome of an asynchronous gateway call. A decline is the gateway's final
+ * answer; errors and timeouts complete the future exceptionally instead and
+ * may be retried.
+ */
+class GatewayResult {
+    private final boolean approved;
+    private final String transactionId;
+    private final String message;
+    
+    private GatewayResult(boolean approved, String transactionId, String message) {
+        this.approved = approved;
+        this.transactionId = transactionId;
+        this.message = message;
     }
     
-    public Payment getPayment(String paymentId) {
-        return payments.get(paymentId);
+    public static GatewayResult approved(String transactionId) {
+        return new GatewayResult(true, transactionId, null);
     }
     
-    public List<Payment> getPaymentsByUser(String userId, boolean isVendor) {
-        return payments.values().stream()
-            .filter(payment -> {
-                Booking booking = new BookingSystem().getBooking(payment.getBookingId());
-                if (booking != null) {
-                    return isVendor ? 
-                        booking.getVendorId().equals(userId) : 
-                        booking.getClientId().equals(userId);
-                }
-                return false;
-            })
-            .collect(Collectors.toList());
+    public static GatewayResult declined(String message) {
+        return new GatewayResult(false, null, message);
     }
     
-    public Map<String, Double> getRevenueStatistics(String vendorId, int months) {
-        Map<String, Double> revenueByMonth = new HashMap<>();
-        LocalDateTime now = LocalDateTime.now();
-        
-        for (int i = 0; i < months; i++) {
-            LocalDateTime monthStart = now.minusMonths(i).withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0);
-            LocalDateTime monthEnd = monthStart.plusMonths(1).minusNanos(1);
-            String monthKey = monthStart.getMonth() + " " + monthStart.getYear();
-            
-            double monthlyRevenue = getPaymentsByUser(vendorId, true).stream()
-                .filter(payment -> {
-                    LocalDateTime paymentDate = payment.getPaymentDate();
-                    return paymentDate != null && 
-                           !paymentDate.isBefore(monthStart) && 
-                           !paymentDate.isAfter(monthEnd) &&
-                           payment.getStatus() == PaymentStatus.PAID;
-                })
-                .mapToDouble(Payment::getAmount)
-                .sum();
-            
-            revenueByMonth.put(monthKey, monthlyRevenue);
-        }
-        
-        return revenueByMonth;
-    }
+    public boolean isApproved() { return approved; }
+    public String getTransactionId() { return transactionId; }
+    public String getMessage() { return message; }
 }
 
-// NOTIFICATION SYSTEM
-
-enum NotificationType {
-    INFO, SUCCESS, WARNING, ERROR
+// Non-blocking counterpart of PaymentGateway. Implementations must treat the
+// payment id as an idempotency key: hedged and retried calls may submit the
+// same payment more than once, and it must only be charged once.
+interface AsyncPaymentGateway {
+    CompletableFuture<GatewayResult> charge(Payment payment);
+    CompletableFuture<GatewayResult> refund(Payment payment);
 }
 
-class Notification {
-    private String id;
-    private String userId;
-    private String title;
-    private String message;
-    private NotificationType type;
-    private boolean isRead;
-    private LocalDateTime timestamp;
-    private String link;
+class GatewayUnavailableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
     
-    public Notification(String userId, String title, String message) {
-        this.id = UUID.randomUUID().toString();
-        this.userId = userId;
-        this.title = title;
-        this.message = message;
-        this.type = NotificationType.INFO;
-        this.isRead = false;
-        this.timestamp = LocalDateTime.now();
+    public GatewayUnavailableException(String message) {
+        super(message);
     }
-    
-    // Getters and setters
-    public String getId() { return id; }
-    public String getUserId() { return userId; }
-    public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
-    public String getMessage() { return message; }
-    public void setMessage(String message) { this.message = message; }
-    public NotificationType getType() { return type; }
-    public void setType(NotificationType type) { this.type = type; }
-    public boolean isRead() { return isRead; }
-    public void setRead(boolean read) { isRead = read; }
-    public LocalDateTime getTimestamp() { return timestamp; }
-    public String getLink() { return link; }
-    public void setLink(String link) { this.link = link; }
 }
 
-class NotificationService {
-    private Map<String, List<Notification>> userNotifications;
+/**
+ * Runs a blocking PaymentGateway on a worker thread so it can sit behind
+ * ResilientGateway. Charges are deduplicated per payment: a hedged or retried
+ * charge of a payment that is already being charged, or has been paid, gets
+ * the same answer instead of a second charge.
+ */
+class BlockingGatewayAdapter implements AsyncPaymentGateway {
+    // Unbounded here; the ResilientGateway in front caps the calls in flight
+    private static final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "gateway-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
     
-    public NotificationService() {
-        this.userNotifications = new ConcurrentHashMap<>();
-    }
+    private final PaymentGateway gateway;
+    private final Map<String, CompletableFuture<GatewayResult>> charges = new ConcurrentHashMap<>();
     
-    public void sendNotification(Notification notification) {
-        userNotifications.computeIfAbsent(notification.getUserId(), k -> new ArrayList<>())
-                        .add(notification);
+    public BlockingGatewayAdapter(PaymentGateway gateway) {
+        this.gateway = gateway;
     }
     
-    public List<Notification> getUserNotifications(String userId) {
-        return new ArrayList<>(userNotifications.getOrDefault(userId, new ArrayList<>()));
+    @Override
+    public CompletableFuture<GatewayResult> charge(Payment payment) {
+        if (payment.getStatus() == PaymentStatus.PAID && payment.getTransactionId() != null) {
+            return CompletableFuture.completedFuture(GatewayResult.approved(payment.getTransactionId()));
+        }
+        CompletableFuture<GatewayResult> pending = new CompletableFuture<>();
+        CompletableFuture<GatewayResult> existing = charges.putIfAbsent(payment.getId(), pending);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture.supplyAsync(() -> gateway.processPayment(payment)
+                ? GatewayResult.approved(payment.getTransactionId())
+                : GatewayResult.declined("Payment declined"), workers)
+            .whenComplete((result, error) -> {
+                // Once settled the payment's own status answers repeat charges
+                charges.remove(payment.getId(), pending);
+                if (error != null) {
+                    pending.completeExceptionally(error);
+                } else {
+                    pending.complete(result);
+                }
+            });
+        return pending;
     }
     
-    public List<Notification> getUnreadNotifications(String userId) {
-        return getUserNotifications(userId).stream()
-                                         .filter(n -> !n.isRead())
-                                         .collect(Collectors.toList());
+    @Override
+    public CompletableFuture<GatewayResult> refund(Payment payment) {
+        return CompletableFuture.supplyAsync(() -> gateway.refundPayment(payment)
+            ? GatewayResult.approved(payment.getTransactionId())
+            : GatewayResult.declined("Refund declined"), workers);
+    }
+}
+
+/**
+ * Local stand-in for a remote gateway, for load testing offline. Latency is
+ * log-normal around a median; a fraction of calls stall for much longer, fail
+ * with an error or are declined. Charges are deduplicated by payment id.
+ */
+class SimulatedGateway implements AsyncPaymentGateway {
+    private static final ScheduledExecutorService timer = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "simulated-gateway");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final String name;
+    private final double medianLatencyMillis;
+    private final double latencySigma;
+    private final double stallRate;
+    private final long stallMillis;
+    private final double errorRate;
+    private final double declineRate;
+    private final Map<String, String> transactions = new ConcurrentHashMap<>();
+    
+    public SimulatedGateway(String name, double medianLatencyMillis, double latencySigma,
+                            double stallRate, long stallMillis, double errorRate, double declineRate) {
+        this.name = name;
+        this.medianLatencyMillis = medianLatencyMillis;
+        this.latencySigma = latencySigma;
+        this.stallRate = stallRate;
+        this.stallMillis = stallMillis;
+        this.errorRate = errorRate;
+        this.declineRate = declineRate;
+    }
+    
+    @Override
+    public CompletableFuture<GatewayResult> charge(Payment payment) {
+        return respond(() -> {
+            if (ThreadLocalRandom.current().nextDouble() < declineRate) {
+                return GatewayResult.declined("Card declined");
+            }
+            return GatewayResult.approved(transactions.computeIfAbsent(payment.getId(),
+                id -> name + "_" + UUID.randomUUID()));
+        });
+    }
+    
+    @Override
+    public CompletableFuture<GatewayResult> refund(Payment payment) {
+        return respond(() -> {
+            String transactionId = transactions.get(payment.getId());
+            return transactionId != null ? GatewayResult.approved(transactionId) : GatewayResult.declined("No such charge");
+        });
+    }
+    
+    private CompletableFuture<GatewayResult> respond(Supplier<GatewayResult> outcome) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = random.nextDouble() < stallRate
+            ? stallMillis
+            : (long) (medianLatencyMillis * Math.exp(latencySigma * random.nextGaussian()));
+        boolean error = random.nextDouble() < errorRate;
+        
+        CompletableFuture<GatewayResult> future = new CompletableFuture<>();
+        timer.schedule(() -> {
+            if (error) {
+                future.completeExceptionally(new GatewayUnavailableException(name + " returned an error"));
+            } else {
+                future.complete(outcome.get());
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+        return future;
+    }
+}
+
+/**
+ * Trips open after a run of consecutive failures and rejects calls until a
+ * cool-down has passed, then lets a single trial call through (half-open).
+ * The trial's outcome closes the breaker again or re-opens it.
+ */
+class CircuitBreaker {
+    enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final int failureThreshold;
+    private final long openMillis;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private volatile long openedAt;
+    
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+    
+    public boolean allowRequest() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        return current == State.OPEN
+            && System.currentTimeMillis() - openedAt >= openMillis
+            && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+    
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        state.set(State.CLOSED);
+    }
+    
+    public void recordFailure() {
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+            state.set(State.OPEN);
+        }
+    }
+    
+    public State getState() {
+        return state.get();
+    }
+}
+
+/**
+ * Wraps an async gateway with a concurrency limit, per-attempt timeout,
+ * hedging, retries and a circuit breaker.
+ *
+ * A call that has not answered within the hedge delay is raced against a
+ * second identical call and the first answer wins; this cuts tail latency
+ * at the cost of a little extra load, and relies on the gateway being
+ * idempotent per payment. If every attempt fails or times out the call is
+ * retried with exponential backoff. Calls beyond the concurrency limit, or
+ * made while the breaker is open, fail immediately with
+ * GatewayUnavailableException rather than queueing.
+ */
+class ResilientGateway implements AsyncPaymentGateway {
+    private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "gateway-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final AsyncPaymentGateway delegate;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final long timeoutMillis;
+    private final long hedgeDelayMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final CircuitBreaker breaker;
+    
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    
+    /**
+     * @param hedgeDelayMillis delay before a hedged call is sent, or 0 to disable hedging
+     */
+    public ResilientGateway(AsyncPaymentGateway delegate, int maxConcurrent, long timeoutMillis,
+                            long hedgeDelayMillis, int maxAttempts, long retryBackoffMillis, CircuitBreaker breaker) {
+        this.delegate = delegate;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.timeoutMillis = timeoutMillis;
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.breaker = breaker;
+    }
+    
+    @Override
+    public CompletableFuture<GatewayResult> charge(Payment payment) {
+        return execute(() -> delegate.charge(payment));
+    }
+    
+    @Override
+    public CompletableFuture<GatewayResult> refund(Payment payment) {
+        return execute(() -> delegate.refund(payment));
+    }
+    
+    private CompletableFuture<GatewayResult> execute(Supplier<CompletableFuture<GatewayResult>> call) {
+        calls.increment();
+        CompletableFuture<GatewayResult> result = new CompletableFuture<>();
+        attempt(call, 1, result);
+        return result;
+    }
+    
+    private void attempt(Supplier<CompletableFuture<GatewayResult>> call, int attemptNumber,
+                         CompletableFuture<GatewayResult> result) {
+        // The first answer from the primary call or its hedge completes the race
+        CompletableFuture<GatewayResult> race = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        
+        GatewayUnavailableException refusal = launch(call, race, outstanding);
+        if (refusal != null) {
+            result.completeExceptionally(refusal);
+            return;
+        }
+        
+        ScheduledFuture<?> hedge = null;
+        if (hedgeDelayMillis > 0) {
+            hedge = scheduler.schedule(() -> {
+                // Join the race only while it is open; once every call has failed it is over
+                if (!race.isDone() && joinRace(outstanding)) {
+                    GatewayUnavailableException hedgeRefusal = launch(call, race, outstanding);
+                    if (hedgeRefusal == null) {
+                        hedges.increment();
+                    } else if (outstanding.decrementAndGet() == 0) {
+                        // The primary failed while the hedge was being refused
+                        race.completeExceptionally(hedgeRefusal);
+                    }
+                }
+            }, hedgeDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        
+        ScheduledFuture<?> pendingHedge = hedge;
+        race.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((answer, error) -> {
+            if (pendingHedge != null) {
+                pendingHedge.cancel(false);
+            }
+            if (error == null) {
+                result.complete(answer);
+                return;
+            }
+            if (error instanceof TimeoutException) {
+                // The calls themselves keep their permits until they really finish
+                timeouts.increment();
+                breaker.recordFailure();
+            }
+            if (attemptNumber < maxAttempts) {
+                // A retry refused by the limit or an open breaker fails fast in launch()
+                retries.increment();
+                scheduler.schedule(() -> attempt(call, attemptNumber + 1, result),
+                    retryBackoffMillis << (attemptNumber - 1), TimeUnit.MILLISECONDS);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+    }
+    
+    private static boolean joinRace(AtomicInteger outstanding) {
+        int current;
+        do {
+            current = outstanding.get();
+            if (current == 0) {
+                return false;
+            }
+        } while (!outstanding.compareAndSet(current, current + 1));
+        return true;
+    }
+    
+    /**
+     * Start one call, or return why it was refused. The call holds its permit
+     * until the gateway actually answers, even if the race has timed out.
+     */
+    private GatewayUnavailableException launch(Supplier<CompletableFuture<GatewayResult>> call,
+                                               CompletableFuture<GatewayResult> race, AtomicInteger outstanding) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            return new GatewayUnavailableException("Gateway concurrency limit reached");
+        }
+        if (!breaker.allowRequest()) {
+            permits.release();
+            rejected.increment();
+            return new GatewayUnavailableException("Gateway circuit breaker is open");
+        }
+        
+        CompletableFuture<GatewayResult> response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(e);
+        }
+        response.whenComplete((answer, error) -> {
+            permits.release();
+            if (error == null) {
+                // A decline still means the gateway is healthy
+                breaker.recordSuccess();
+                race.complete(answer);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            breaker.recordFailure();
+            if (outstanding.decrementAndGet() == 0) {
+                race.completeExceptionally(cause);
+            }
+        });
+        return null;
+    }
+    
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("calls", calls.sum());
+        stats.put("hedges", hedges.sum());
+        stats.put("retries", retries.sum());
+        stats.put("timeouts", timeouts.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("inFlight", maxConcurrent - permits.availablePermits());
+        stats.put("breaker", breaker.getState());
+        return stats;
+    }
+}
+
+class PaymentProcessor {
+    private Map<PaymentMethod, PaymentGateway> gateways;
+    private Map<PaymentMethod, AsyncPaymentGateway> asyncGateways;
+    private Map<String, Payment> payments;
+    private BookingSystem bookingSystem;
+    // Payments per client and per vendor, keyed by payment id in processing order
+    private Map<String, Map<String, Payment>> clientPayments;
+    private Map<String, Map<String, Payment>> vendorPayments;
+    // Paid revenue per vendor per month of payment, net of refunds
+    private Map<String, Map<YearMonth, DoubleAdder>> vendorRevenue;
+    private Set<String> paymentsInRevenue;
+    // Updates share the read lock (the adders are thread-safe); a rebuild takes the write lock
+    private final ReadWriteLock revenueLock = new ReentrantReadWriteLock();
+    
+    public PaymentProcessor(BookingSystem bookingSystem) {
+        this.gateways = new HashMap<>();
+        this.gateways.put(PaymentMethod.CREDIT_CARD, new StripeGateway());
+        this.gateways.put(PaymentMethod.PAYPAL, new PayPalGateway());
+        this.asyncGateways = new ConcurrentHashMap<>();
+        for (Map.Entry<PaymentMethod, PaymentGateway> entry : this.gateways.entrySet()) {
+            this.asyncGateways.put(entry.getKey(), resilient(new BlockingGatewayAdapter(entry.getValue())));
+        }
+        this.payments = new ConcurrentHashMap<>();
+        this.bookingSystem = bookingSystem;
+        this.clientPayments = new ConcurrentHashMap<>();
+        this.vendorPayments = new ConcurrentHashMap<>();
+        this.vendorRevenue = new ConcurrentHashMap<>();
+        this.paymentsInRevenue = ConcurrentHashMap.newKeySet();
+    }
+    
+    public boolean processPayment(Payment payment) {
+        PaymentGateway gateway = gateways.get(payment.getPaymentMethod());
+        if (gateway != null && gateway.processPayment(payment)) {
+            payments.put(payment.getId(), payment);
+            indexPayment(payment);
+            if (payment.getStatus() == PaymentStatus.PAID) {
+                addRevenue(payment);
+            }
+            return true;
+        }
+        return false;
+    }
+    
+    public boolean refundPayment(String paymentId) {
+        Payment payment = payments.get(paymentId);
+        if (payment != null) {
+            PaymentGateway gateway = gateways.get(payment.getPaymentMethod());
+            if (gateway != null && gateway.refundPayment(payment)) {
+                // Picks up payments whose booking was not yet known when they were processed
+                indexPayment(payment);
+                removeRevenue(payment);
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Default protection for a gateway: at most 64 calls in flight, 2s per
+     * call, a hedge after 500ms, 3 attempts and a breaker that opens for 10s
+     * after 5 consecutive failures.
+     */
+    static AsyncPaymentGateway resilient(AsyncPaymentGateway gateway) {
+        return new ResilientGateway(gateway, 64, 2000, 500, 3, 100, new CircuitBreaker(5, 10_000));
+    }
+    
+    public void setAsyncGateway(PaymentMethod method, AsyncPaymentGateway gateway) {
+        asyncGateways.put(method, gateway);
+    }
+    
+    /**
+     * Process a payment without blocking the caller. Completes with true once
+     * the gateway approves, false if it declines or cannot be reached. After an
+     * error or timeout the payment stays PENDING because the charge may still
+     * have gone through; resubmitting it is safe since gateways are idempotent.
+     */
+    public CompletableFuture<Boolean> processPaymentAsync(Payment payment) {
+        AsyncPaymentGateway gateway = asyncGateways.get(payment.getPaymentMethod());
+        if (gateway == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return gateway.charge(payment).handle((result, error) -> {
+            if (error != null) {
+                return false;
+            }
+            if (!result.isApproved()) {
+                payment.setStatus(PaymentStatus.FAILED);
+                return false;
+            }
+            payment.setTransactionId(result.getTransactionId());
+            payment.setStatus(PaymentStatus.PAID);
+            payment.setPaymentDate(LocalDateTime.now());
+            payments.put(payment.getId(), payment);
+            indexPayment(payment);
+            addRevenue(payment);
+            return true;
+        });
+    }
+    
+    public CompletableFuture<Boolean> refundPaymentAsync(String paymentId) {
+        Payment payment = payments.get(paymentId);
+        AsyncPaymentGateway gateway = payment != null ? asyncGateways.get(payment.getPaymentMethod()) : null;
+        if (gateway == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return gateway.refund(payment).handle((result, error) -> {
+            if (error != null || !result.isApproved()) {
+                return false;
+            }
+            payment.setStatus(PaymentStatus.REFUNDED);
+            indexPayment(payment);
+            removeRevenue(payment);
+            return true;
+        });
+    }
+    
+    /**
+     * Add the payment to its client's and vendor's history. Idempotent.
+     */
+    private void indexPayment(Payment payment) {
+        Booking booking = bookingSystem.getBooking(payment.getBookingId());
+        if (booking == null) {
+            return;
+        }
+        addToIndex(clientPayments, booking.getClientId(), payment);
+        addToIndex(vendorPayments, booking.getVendorId(), payment);
+    }
+    
+    private void addToIndex(Map<String, Map<String, Payment>> index, String userId, Payment payment) {
+        if (userId == null) {
+            return;
+        }
+        Map<String, Payment> userPayments = index.computeIfAbsent(userId,
+            k -> Collections.synchronizedMap(new LinkedHashMap<>()));
+        userPayments.put(payment.getId(), payment);
+    }
+    
+    public Payment getPayment(String paymentId) {
+        return payments.get(paymentId);
+    }
+    
+    public List<Payment> getPaymentsByUser(String userId, boolean isVendor) {
+        Map<String, Payment> userPayments = (isVendor ? vendorPayments : clientPayments).get(userId);
+        if (userPayments == null) {
+            return new ArrayList<>();
+        }
+        synchronized (userPayments) {
+            return new ArrayList<>(userPayments.values());
+        }
+    }
+    
+    /**
+     * Revenue for each of the last N months, read from the running aggregates in O(N)
+     */
+    public Map<String, Double> getRevenueStatistics(String vendorId, int months) {
+        Map<String, Double> revenueByMonth = new HashMap<>();
+        YearMonth current = YearMonth.now();
+        
+        revenueLock.readLock().lock();
+        try {
+            Map<YearMonth, DoubleAdder> revenue = vendorRevenue.getOrDefault(vendorId, Collections.emptyMap());
+            for (int i = 0; i < months; i++) {
+                YearMonth month = current.minusMonths(i);
+                String monthKey = month.getMonth() + " " + month.getYear();
+                DoubleAdder monthlyRevenue = revenue.get(month);
+                revenueByMonth.put(monthKey, monthlyRevenue != null ? monthlyRevenue.sum() : 0.0);
+            }
+        } finally {
+            revenueLock.readLock().unlock();
+        }
+        
+        return revenueByMonth;
+    }
+    
+    /**
+     * Count a newly PAID payment towards its vendor's revenue for the month it was paid
+     */
+    private void addRevenue(Payment payment) {
+        revenueLock.readLock().lock();
+        try {
+            DoubleAdder bucket = revenueBucket(payment);
+            if (bucket != null && paymentsInRevenue.add(payment.getId())) {
+                bucket.add(payment.getAmount());
+            }
+        } finally {
+            revenueLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Take a REFUNDED payment back out of its month, if it was counted
+     */
+    private void removeRevenue(Payment payment) {
+        revenueLock.readLock().lock();
+        try {
+            DoubleAdder bucket = revenueBucket(payment);
+            if (bucket != null && paymentsInRevenue.remove(payment.getId())) {
+                bucket.add(-payment.getAmount());
+            }
+        } finally {
+            revenueLock.readLock().unlock();
+        }
+    }
+    
+    private DoubleAdder revenueBucket(Payment payment) {
+        Booking booking = bookingSystem.getBooking(payment.getBookingId());
+        if (booking == null || booking.getVendorId() == null || payment.getPaymentDate() == null) {
+            return null;
+        }
+        return vendorRevenue.computeIfAbsent(booking.getVendorId(), k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(YearMonth.from(payment.getPaymentDate()), k -> new DoubleAdder());
+    }
+    
+    /**
+     * Rebuild the revenue aggregates from the full payment history, e.g. after
+     * loading payments or if a booking was only created after its payment.
+     */
+    public void rebuildRevenueAggregates() {
+        revenueLock.writeLock().lock();
+        try {
+            vendorRevenue.clear();
+            paymentsInRevenue.clear();
+            for (Payment payment : payments.values()) {
+                if (payment.getStatus() == PaymentStatus.PAID) {
+                    DoubleAdder bucket = revenueBucket(payment);
+                    if (bucket != null) {
+                        bucket.add(payment.getAmount());
+                        paymentsInRevenue.add(payment.getId());
+                    }
+                }
+            }
+        } finally {
+            revenueLock.writeLock().unlock();
+        }
+    }
+}
+
+// NOTIFICATION SYSTEM
+
+enum NotificationType {
+    INFO, SUCCESS, WARNING, ERROR
+}
+
+class Notification {
+    private String id;
+    private String userId;
+    private String title;
+    private String message;
+    private NotificationType type;
+    private boolean isRead;
+    private LocalDateTime timestamp;
+    private String link;
+    
+    public Notification(String userId, String title, String message) {
+        this.id = UUID.randomUUID().toString();
+        this.userId = userId;
+        this.title = title;
+        this.message = message;
+        this.type = NotificationType.INFO;
+        this.isRead = false;
+        this.timestamp = LocalDateTime.now();
+    }
+    
+    // Getters and setters
+    public String getId() { return id; }
+    public String getUserId() { return userId; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+    public NotificationType getType() { return type; }
+    public void setType(NotificationType type) { this.type = type; }
+    public boolean isRead() { return isRead; }
+    public void setRead(boolean read) { isRead = read; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public String getLink() { return link; }
+    public void setLink(String link) { this.link = link; }
+    
+    /**
+     * JSON form pushed to connected clients, matching the frontend's Notification type
+     */
+    public String toJson() {
+        return "{\"id\":" + quote(id) + ",\"userId\":" + quote(userId)
+            + ",\"title\":" + quote(title) + ",\"message\":" + quote(message)
+            + ",\"type\":" + quote(type.name().toLowerCase()) + ",\"isRead\":" + isRead
+            + ",\"timestamp\":" + quote(timestamp.toString()) + ",\"link\":" + quote(link) + "}";
+    }
+    
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
+
+/**
+ * One user's notifications: a fixed-size ring buffer, oldest first, with an
+ * id index. When full, the oldest notification is dropped to make room.
+ * The unread count is kept up to date on every change so it can be read
+ * without locking; all other access is synchronized on the inbox.
+ *
+ * The ring is kept sorted by (timestamp, id). Notifications almost always
+ * arrive in that order; one that was created slightly before another but
+ * added after it is shifted back into place. Because of the ordering a
+ * page can be located by binary search from a cursor, see pageBefore().
+ */
+class NotificationInbox {
+    private final Notification[] ring;
+    private final Map<String, Notification> byId = new HashMap<>();
+    private final AtomicInteger unread = new AtomicInteger();
+    // Index of the oldest notification
+    private int head;
+    private int size;
+    
+    public NotificationInbox(int capacity) {
+        this.ring = new Notification[capacity];
+    }
+    
+    public synchronized void add(Notification notification) {
+        if (size == ring.length) {
+            Notification evicted = ring[head];
+            byId.remove(evicted.getId());
+            if (!evicted.isRead()) {
+                unread.decrementAndGet();
+            }
+            ring[head] = notification;
+            head = (head + 1) % ring.length;
+        } else {
+            ring[(head + size) % ring.length] = notification;
+            size++;
+        }
+        
+        // Restore time order if this one was created before the newest we hold
+        for (int i = size - 1; i > 0 && compare(at(i - 1), notification) > 0; i--) {
+            ring[(head + i) % ring.length] = at(i - 1);
+            ring[(head + i - 1) % ring.length] = notification;
+        }
+        byId.put(notification.getId(), notification);
+        if (!notification.isRead()) {
+            unread.incrementAndGet();
+        }
+    }
+    
+    public synchronized boolean markAsRead(String notificationId) {
+        Notification notification = byId.get(notificationId);
+        if (notification == null || notification.isRead()) {
+            return false;
+        }
+        notification.setRead(true);
+        unread.decrementAndGet();
+        return true;
+    }
+    
+    public synchronized void markAllAsRead() {
+        for (int i = 0; i < size; i++) {
+            ring[(head + i) % ring.length].setRead(true);
+        }
+        unread.set(0);
+    }
+    
+    public int getUnreadCount() {
+        return unread.get();
+    }
+    
+    /**
+     * Copy of notifications [from, from + count) in oldest-first order
+     */
+    public synchronized List<Notification> slice(int from, int count) {
+        int start = Math.max(0, from);
+        int end = (int) Math.min(size, (long) start + count);
+        List<Notification> result = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            result.add(ring[(head + i) % ring.length]);
+        }
+        return result;
+    }
+    
+    public synchronized List<Notification> getUnread() {
+        List<Notification> result = new ArrayList<>(unread.get());
+        for (int i = 0; i < size; i++) {
+            Notification notification = ring[(head + i) % ring.length];
+            if (!notification.isRead()) {
+                result.add(notification);
+            }
+        }
+        return result;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    /**
+     * Up to limit notifications strictly older than (timestamp, id), newest
+     * first. A null timestamp starts from the newest notification. Costs a
+     * binary search plus the page itself, and notifications added meanwhile
+     * are all newer than the cursor, so they never shift later pages.
+     */
+    public synchronized NotificationPage pageBefore(LocalDateTime timestamp, String id, int limit) {
+        int end = size;
+        if (timestamp != null) {
+            // First position whose key is >= the cursor
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(at(mid), timestamp, id) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            end = low;
+        }
+        
+        int start = Math.max(0, end - Math.max(0, limit));
+        List<Notification> items = new ArrayList<>(end - start);
+        for (int i = end - 1; i >= start; i--) {
+            items.add(at(i));
+        }
+        return new NotificationPage(items, start > 0 && !items.isEmpty() ? items.get(items.size() - 1) : null);
+    }
+    
+    private Notification at(int index) {
+        return ring[(head + index) % ring.length];
+    }
+    
+    private static int compare(Notification a, Notification b) {
+        return compare(a, b.getTimestamp(), b.getId());
+    }
+    
+    private static int compare(Notification notification, LocalDateTime timestamp, String id) {
+        int byTime = notification.getTimestamp().compareTo(timestamp);
+        return byTime != 0 ? byTime : notification.getId().compareTo(id);
+    }
+}
+
+/**
+ * One page of a user's notifications, newest first. The cursor is opaque to
+ * clients: pass it back to fetch the next (older) page. It is null on the
+ * last page.
+ */
+class NotificationPage {
+    private final List<Notification> items;
+    private final String nextCursor;
+    
+    NotificationPage(List<Notification> items, Notification last) {
+        this.items = items;
+        this.nextCursor = last != null ? encodeCursor(last.getTimestamp(), last.getId()) : null;
+    }
+    
+    public List<Notification> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return nextCursor != null; }
+    
+    static String encodeCursor(LocalDateTime timestamp, String id) {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode a cursor, or return null if it is malformed
+     */
+    static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int bar = raw.indexOf('|');
+            if (bar <= 0) {
+                return null;
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, bar)), raw.substring(bar + 1));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    
+    static class Cursor {
+        final LocalDateTime timestamp;
+        final String id;
+        
+        Cursor(LocalDateTime timestamp, String id) {
+            this.timestamp = timestamp;
+            this.id = id;
+        }
+    }
+}
+
+class NotificationService {
+    private static final int DEFAULT_CAPACITY_PER_USER = 200;
+    
+    private Map<String, NotificationInbox> userNotifications;
+    private final int capacityPerUser;
+    private final NotificationHub hub;
+    
+    public NotificationService() {
+        this(DEFAULT_CAPACITY_PER_USER);
+    }
+    
+    public NotificationService(int capacityPerUser) {
+        this.userNotifications = new ConcurrentHashMap<>();
+        this.capacityPerUser = capacityPerUser;
+        this.hub = NotificationHub.getInstance();
+    }
+    
+    public void sendNotification(Notification notification) {
+        userNotifications.computeIfAbsent(notification.getUserId(), k -> new NotificationInbox(capacityPerUser))
+                        .add(notification);
+        
+        // Push to any open notification streams
+        if (hub.hasSubscribers(notification.getUserId())) {
+            hub.publish(notification.getUserId(), notification.toJson());
+        }
+    }
+    
+    public List<Notification> getUserNotifications(String userId) {
+        NotificationInbox inbox = userNotifications.get(userId);
+        return inbox != null ? inbox.slice(0, Integer.MAX_VALUE) : new ArrayList<>();
+    }
+    
+    public List<Notification> getUnreadNotifications(String userId) {
+        NotificationInbox inbox = userNotifications.get(userId);
+        return inbox != null ? inbox.getUnread() : new ArrayList<>();
     }
     
     public void markAsRead(String notificationId, String userId) {
-        List<Notification> notifications = userNotifications.get(userId);
-        if (notifications != null) {
-            notifications.stream()
-                       .filter(n -> n.getId().equals(notificationId))
-                       .findFirst()
-                       .ifPresent(n -> n.setRead(true));
+        NotificationInbox inbox = userNotifications.get(userId);
+        if (inbox != null) {
+            inbox.markAsRead(notificationId);
         }
     }
     
     public void markAllAsRead(String userId) {
-        List<Notification> notifications = userNotifications.get(userId);
-        if (notifications != null) {
-            notifications.forEach(n -> n.setRead(true));
+        NotificationInbox inbox = userNotifications.get(userId);
+        if (inbox != null) {
+            inbox.markAllAsRead();
         }
     }
     
     public boolean hasUnreadNotifications(String userId) {
-        List<Notification> notifications = getUnreadNotifications(userId);
-        return !notifications.isEmpty();
+        return getUnreadCount(userId) > 0;
     }
     
     public int getUnreadCount(String userId) {
-        return getUnreadNotifications(userId).size();
+        NotificationInbox inbox = userNotifications.get(userId);
+        return inbox != null ? inbox.getUnreadCount() : 0;
     }
     
+    /**
+     * Offset-based paging, oldest first. Pages shift when old notifications
+     * are evicted; prefer getNotificationPage for scrolling through a feed.
+     */
     public List<Notification> getPaginatedNotifications(String userId, int page, int pageSize) {
-        List<Notification> allNotifications = getUserNotifications(userId);
-        int startIndex = page * pageSize;
-        int endIndex = Math.min(startIndex + pageSize, allNotifications.size());
-        
-        if (startIndex >= allNotifications.size()) {
+        NotificationInbox inbox = userNotifications.get(userId);
+        if (inbox == null) {
             return new ArrayList<>();
         }
-        
-        return allNotifications.subList(startIndex, endIndex);
+        return inbox.slice((int) Math.min(Integer.MAX_VALUE, (long) page * pageSize), pageSize);
+    }
+    
+    /**
+     * Newest-first page of a user's notifications. Pass null for the first
+     * page and the previous page's next cursor after that; a cursor that
+     * cannot be decoded is treated as null. Results stay stable while new
+     * notifications arrive.
+     */
+    public NotificationPage getNotificationPage(String userId, String cursor, int limit) {
+        NotificationInbox inbox = userNotifications.get(userId);
+        if (inbox == null) {
+            return new NotificationPage(new ArrayList<>(), null);
+        }
+        NotificationPage.Cursor position = cursor != null ? NotificationPage.decodeCursor(cursor) : null;
+        if (position == null) {
+            return inbox.pageBefore(null, null, limit);
+        }
+        return inbox.pageBefore(position.timestamp, position.id, limit);
     }
 }
 
 // MESSAGING SYSTEM
 
+/**
+ * A message as stored once in its thread's log. Read state is not kept on
+ * the message; see MessageThread's per-participant read watermarks.
+ */
 class Message {
     private String id;
+    private String threadId;
+    private long sequence;
     private String senderId;
-    private String receiverId;
     private String content;
     private LocalDateTime timestamp;
-    private boolean isRead;
     
-    public Message(String senderId, String receiverId, String content) {
-        this.id = UUID.randomUUID().toString();
+    public Message(String threadId, long sequence, String senderId, String content) {
+        this.threadId = threadId;
         this.senderId = senderId;
-        this.receiverId = receiverId;
         this.content = content;
         this.timestamp = LocalDateTime.now();
-        this.isRead = false;
+        assignSequence(sequence);
     }
     
-    // Getters and setters
+    /**
+     * Number the message; MessageLog calls this before publishing it
+     */
+    void assignSequence(long sequence) {
+        // Unique without a shared random source, which would serialize concurrent senders
+        this.id = threadId + "-" + sequence;
+        this.sequence = sequence;
+    }
+    
+    // Getters
     public String getId() { return id; }
+    public String getThreadId() { return threadId; }
+    public long getSequence() { return sequence; }
     public String getSenderId() { return senderId; }
-    public String getReceiverId() { return receiverId; }
     public String getContent() { return content; }
     public LocalDateTime getTimestamp() { return timestamp; }
-    public boolean isRead() { return isRead; }
-    public void setRead(boolean read) { this.isRead = read; }
 }
 
+/**
+ * Append-only message log that many threads can append to without locking.
+ *
+ * Messages live in fixed-size chunks reached through a directory, so the
+ * log grows without copying messages. A writer claims a slot with one
+ * atomic increment, stores its message and then publishes it by advancing
+ * the published size. Slots are published in order, so a writer that
+ * finishes early waits briefly for the slots before its own, spinning and
+ * then yielding. Readers only
+ * look below the published size, which is a volatile read, so they never
+ * see a gap or a half-written slot and never block writers. The directory
+ * and chunks are allocated under a lock, once every CHUNK_SIZE messages.
+ */
+class MessageLog {
+    private static final int CHUNK_SHIFT = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int SPIN_LIMIT = 100;
+    
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long published;
+    private volatile Message[][] chunks = new Message[4][];
+    
+    /**
+     * Append a message, numbering it with the next sequence number (1-based).
+     * The message is built before a slot is claimed: once claimed, a slot
+     * must be published or every later writer would wait for it forever.
+     */
+    public Message append(Message message) {
+        long index = claimed.getAndIncrement();
+        try {
+            message.assignSequence(index + 1);
+            chunkFor(index)[(int) (index & CHUNK_MASK)] = message;
+        } finally {
+            // Even if storing failed (out of memory growing the chunks), the
+            // slot is published so later writers are not stalled behind it.
+            // Publish in slot order. The writer ahead of us is normally a few
+            // instructions from done; if it was descheduled, give up the CPU.
+            for (int spins = 0; published != index; spins++) {
+                if (spins < SPIN_LIMIT) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            published = index + 1;
+        }
+        return message;
+    }
+    
+    public long size() {
+        return published;
+    }
+    
+    /**
+     * Message with the given sequence number, which must be published
+     */
+    public Message get(long sequence) {
+        long index = sequence - 1;
+        return chunks[(int) (index >>> CHUNK_SHIFT)][(int) (index & CHUNK_MASK)];
+    }
+    
+    /**
+     * Read-only view of the messages published so far. Creating it copies
+     * nothing; it does not see messages appended afterwards.
+     */
+    public List<Message> snapshot() {
+        return snapshot(0, published);
+    }
+    
+    /**
+     * Read-only view of messages with sequence numbers in (after, upTo]
+     */
+    public List<Message> snapshot(long after, long upTo) {
+        int size = (int) Math.max(0, upTo - after);
+        return new AbstractList<Message>() {
+            @Override
+            public Message get(int i) {
+                if (i < 0 || i >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+                }
+                return MessageLog.this.get(after + i + 1);
+            }
+            
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+    
+    private Message[] chunkFor(long index) {
+        int chunk = (int) (index >>> CHUNK_SHIFT);
+        Message[][] current = chunks;
+        if (chunk < current.length && current[chunk] != null) {
+            return current[chunk];
+        }
+        synchronized (this) {
+            current = chunks;
+            if (chunk >= current.length) {
+                current = Arrays.copyOf(current, Math.max(current.length * 2, chunk + 1));
+            }
+            if (current[chunk] == null) {
+                current[chunk] = new Message[CHUNK_SIZE];
+            }
+            // Volatile write publishes the new chunk to readers
+            chunks = current;
+            return current[chunk];
+        }
+    }
+}
+
+/**
+ * A conversation between a fixed set of participants. Messages are kept
+ * once, in an append-only log, numbered 1, 2, 3... in order. Instead of a
+ * read flag per message per recipient, each participant has a read
+ * watermark: the sequence number of the last message they have read.
+ * Everything after it is unread, so marking a thread read and counting
+ * unread messages are O(1). Sending a message also marks everything before
+ * it read for the sender.
+ *
+ * Safe for concurrent use: the log is lock-free (see MessageLog), the
+ * participants never change, and watermarks only move forward by CAS.
+ */
 class MessageThread {
-    private String id;
-    private Set<String> participants;
-    private List<Message> messages;
+    private final String id;
+    private final Set<String> participants;
+    private final MessageLog messages;
+    private final Map<String, AtomicLong> readWatermarks;
     
     public MessageThread(String... participantIds) {
         this.id = UUID.randomUUID().toString();
-        this.participants = new HashSet<>(Arrays.asList(participantIds));
-        this.messages = new ArrayList<>();
+        this.participants = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(participantIds)));
+        this.messages = new MessageLog();
+        this.readWatermarks = new HashMap<>();
+        for (String participantId : participants) {
+            readWatermarks.put(participantId, new AtomicLong());
+        }
     }
     
     public String getId() { return id; }
     
     public Set<String> getParticipants() {
-        return new HashSet<>(participants);
+        return participants;
+    }
+    
+    public boolean isParticipant(String userId) {
+        return participants.contains(userId);
     }
     
-    public void addMessage(Message message) {
-        messages.add(message);
+    public Message append(String senderId, String content) {
+        return messages.append(new Message(id, 0, senderId, content));
     }
     
+    /**
+     * Snapshot of the messages sent so far, without copying
+     */
     public List<Message> getMessages() {
-        return new ArrayList<>(messages);
+        return messages.snapshot();
+    }
+    
+    public long getLastSequence() {
+        return messages.size();
+    }
+    
+    public Message getLastMessage() {
+        long last = messages.size();
+        return last > 0 ? messages.get(last) : null;
+    }
+    
+    public long getReadWatermark(String userId) {
+        AtomicLong watermark = readWatermarks.get(userId);
+        return watermark != null ? watermark.get() : 0;
+    }
+    
+    public boolean isRead(Message message, String userId) {
+        return message.getSequence() <= getReadWatermark(userId);
+    }
+    
+    public int getUnreadCount(String userId) {
+        if (!isParticipant(userId)) {
+            return 0;
+        }
+        return (int) Math.max(0, getLastSequence() - getReadWatermark(userId));
+    }
+    
+    public List<Message> getUnreadMessages(String userId) {
+        if (!isParticipant(userId)) {
+            return new ArrayList<>();
+        }
+        long last = getLastSequence();
+        return messages.snapshot(Math.min(getReadWatermark(userId), last), last);
+    }
+    
+    /**
+     * Mark messages up to and including the given sequence number read.
+     * The watermark never moves backwards.
+     *
+     * @return how many messages became read
+     */
+    public long markReadUpTo(String userId, long sequence) {
+        AtomicLong watermark = readWatermarks.get(userId);
+        if (watermark == null) {
+            return 0;
+        }
+        long target = Math.min(sequence, getLastSequence());
+        while (true) {
+            long current = watermark.get();
+            if (target <= current) {
+                return 0;
+            }
+            if (watermark.compareAndSet(current, target)) {
+                return target - current;
+            }
+        }
+    }
+    
+    public long markAllAsRead(String userId) {
+        return markReadUpTo(userId, getLastSequence());
+    }
+}
+
+/**
+ * A user's total unread message count and the threads that may have unread
+ * messages, so the total is O(1) to read and marking everything read only
+ * visits threads that need it. Per-thread counts come from the threads'
+ * watermarks.
+ *
+ * The total is the sum over the user's threads of (last sequence - read
+ * watermark): each sent message adds one for every participant, and each
+ * watermark move subtracts the number of messages it passed. Under
+ * concurrent sends and reads the two updates can land in either order, so
+ * the total may be briefly off by in-flight messages but never drifts.
+ */
+class UnreadCounters {
+    private final Set<String> threadsWithUnread = ConcurrentHashMap.newKeySet();
+    private final AtomicLong total = new AtomicLong();
+    
+    public void messageAdded(String threadId) {
+        total.incrementAndGet();
+        threadsWithUnread.add(threadId);
+    }
+    
+    /**
+     * Record that count messages became read in the thread. Must be called
+     * after the watermark moved; the thread is dropped from the unread set
+     * only if it has nothing left unread after the removal.
+     */
+    public void messagesRead(MessageThread thread, String userId, long count) {
+        if (count > 0) {
+            total.addAndGet(-count);
+        }
+        if (thread.getUnreadCount(userId) == 0) {
+            threadsWithUnread.remove(thread.getId());
+            // A message sent meanwhile may have re-added and then lost its entry
+            if (thread.getUnreadCount(userId) > 0) {
+                threadsWithUnread.add(thread.getId());
+            }
+        }
+    }
+    
+    public int getTotal() {
+        return (int) Math.max(0, total.get());
+    }
+    
+    public Set<String> getThreadsWithUnread() {
+        return new HashSet<>(threadsWithUnread);
+    }
+}
+
+/**
+ * One row of a user's inbox: a thread with its unread count and latest message
+ */
+class ThreadSummary {
+    private final String threadId;
+    private final Set<String> participants;
+    private final int unreadCount;
+    private final Message lastMessage;
+    
+    public ThreadSummary(String threadId, Set<String> participants, int unreadCount, Message lastMessage) {
+        this.threadId = threadId;
+        this.participants = participants;
+        this.unreadCount = unreadCount;
+        this.lastMessage = lastMessage;
+    }
+    
+    public String getThreadId() { return threadId; }
+    public Set<String> getParticipants() { return participants; }
+    public int getUnreadCount() { return unreadCount; }
+    public Message getLastMessage() { return lastMessage; }
+}
+
+/**
+ * One user's message search index: each term that appears in a message of
+ * one of their threads maps to those threads, with the time of the latest
+ * message containing it. Terms are kept sorted so a prefix is a range scan.
+ * Updated as messages are sent; nothing is rescanned at search time. Safe
+ * for concurrent updates and searches.
+ */
+class ThreadSearchIndex {
+    private final ConcurrentNavigableMap<String, Map<String, LocalDateTime>> threadsByTerm = new ConcurrentSkipListMap<>();
+    
+    public void add(String threadId, Collection<String> terms, LocalDateTime timestamp) {
+        for (String term : terms) {
+            threadsByTerm.computeIfAbsent(term, k -> new ConcurrentHashMap<>())
+                         .merge(threadId, timestamp, ThreadSearchIndex::latest);
+        }
+    }
+    
+    /**
+     * Ids of threads containing a term starting with every query term, most
+     * recent match first
+     */
+    public List<String> search(Collection<String> queryTerms) {
+        Map<String, LocalDateTime> matches = null;
+        for (String prefix : queryTerms) {
+            Map<String, LocalDateTime> termMatches = new HashMap<>();
+            String end = prefix + Character.MAX_VALUE;
+            for (Map<String, LocalDateTime> threads : threadsByTerm.subMap(prefix, end).values()) {
+                threads.forEach((threadId, timestamp) -> termMatches.merge(threadId, timestamp, ThreadSearchIndex::latest));
+            }
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.keySet().retainAll(termMatches.keySet());
+                matches.replaceAll((threadId, timestamp) -> latest(timestamp, termMatches.get(threadId)));
+            }
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+        if (matches == null) {
+            return new ArrayList<>();
+        }
+        return matches.entrySet().stream()
+            .sorted(Map.Entry.<String, LocalDateTime>comparingByValue().reversed())
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+    }
+    
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+    
+    /**
+     * Lowercased runs of letters and digits, without duplicates
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
     }
 }
 
+/**
+ * Messaging between clients and vendors. Safe for concurrent use: the
+ * registries are concurrent maps, appends to a thread are lock-free, and
+ * readers get snapshots that are never modified underneath them.
+ */
 class MessagingService {
-    private Map<String, MessageThread> threads;
-    private Map<String, Set<String>> userThreads;
+    private final Map<String, MessageThread> threads;
+    private final Map<String, Set<String>> userThreads;
+    // Kept in step with the threads' read watermarks on every send and read
+    private final Map<String, UnreadCounters> unreadCounters;
+    private final Map<String, ThreadSearchIndex> searchIndexes;
     
     public MessagingService() {
-        this.threads = new HashMap<>();
-        this.userThreads = new HashMap<>();
+        this.threads = new ConcurrentHashMap<>();
+        this.userThreads = new ConcurrentHashMap<>();
+        this.unreadCounters = new ConcurrentHashMap<>();
+        this.searchIndexes = new ConcurrentHashMap<>();
     }
     
     public String createThread(String... participantIds) {
@@ -848,7 +2580,7 @@ class MessagingService {
         
         // Update user-thread mappings
         for (String userId : participantIds) {
-            userThreads.computeIfAbsent(userId, k -> new HashSet<>())
+            userThreads.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet())
                       .add(thread.getId());
         }
         
@@ -857,19 +2589,21 @@ class MessagingService {
     
     public void sendMessage(String threadId, String senderId, String content) {
         MessageThread thread = threads.get(threadId);
-        if (thread != null && thread.getParticipants().contains(senderId)) {
-            Set<String> recipients = thread.getParticipants();
-            recipients.remove(senderId);
-            
-            for (String recipientId : recipients) {
-                Message message = new Message(senderId, recipientId, content);
-                thread.addMessage(message);
+        if (thread != null && thread.isParticipant(senderId)) {
+            Message message = thread.append(senderId, content);
+            Set<String> terms = ThreadSearchIndex.tokenize(content);
+            for (String participantId : thread.getParticipants()) {
+                searchIndexes.computeIfAbsent(participantId, k -> new ThreadSearchIndex())
+                             .add(threadId, terms, message.getTimestamp());
+                counters(participantId).messageAdded(threadId);
             }
+            // Sending marks the thread read for the sender
+            counters(senderId).messagesRead(thread, senderId, thread.markReadUpTo(senderId, message.getSequence()));
         }
     }
     
     public List<MessageThread> getUserThreads(String userId) {
-        Set<String> threadIds = userThreads.getOrDefault(userId, new HashSet<>());
+        Set<String> threadIds = userThreads.getOrDefault(userId, Collections.emptySet());
         return threadIds.stream()
                       .map(threads::get)
                       .collect(Collectors.toList());
@@ -881,77 +2615,202 @@ class MessagingService {
     }
     
     public List<Message> getUnreadMessages(String userId) {
-        List<MessageThread> userThreadsList = getUserThreads(userId);
-        
-        return userThreadsList.stream()
-            .flatMap(thread -> thread.getMessages().stream())
-            .filter(message -> message.getReceiverId().equals(userId) && !message.isRead())
+        return counters(userId).getThreadsWithUnread().stream()
+            .map(threads::get)
+            .flatMap(thread -> thread.getUnreadMessages(userId).stream())
             .collect(Collectors.toList());
     }
     
     public int getUnreadCount(String userId) {
-        return getUnreadMessages(userId).size();
+        UnreadCounters counters = unreadCounters.get(userId);
+        return counters != null ? counters.getTotal() : 0;
+    }
+    
+    public int getUnreadCount(String userId, String threadId) {
+        MessageThread thread = threads.get(threadId);
+        return thread != null ? thread.getUnreadCount(userId) : 0;
+    }
+    
+    /**
+     * The user's threads, most recently active first, each with its unread
+     * count and last message
+     */
+    public List<ThreadSummary> getInboxSummary(String userId) {
+        return getUserThreads(userId).stream()
+            .map(thread -> new ThreadSummary(thread.getId(), thread.getParticipants(),
+                thread.getUnreadCount(userId), thread.getLastMessage()))
+            .sorted(Comparator.comparing((ThreadSummary summary) -> summary.getLastMessage() != null
+                    ? summary.getLastMessage().getTimestamp() : LocalDateTime.MIN).reversed())
+            .collect(Collectors.toList());
+    }
+    
+    public void markReadUpTo(String threadId, String userId, long sequence) {
+        MessageThread thread = threads.get(threadId);
+        if (thread != null && thread.isParticipant(userId)) {
+            counters(userId).messagesRead(thread, userId, thread.markReadUpTo(userId, sequence));
+        }
+    }
+    
+    public void markThreadAsRead(String threadId, String userId) {
+        MessageThread thread = threads.get(threadId);
+        if (thread != null && thread.isParticipant(userId)) {
+            counters(userId).messagesRead(thread, userId, thread.markAllAsRead(userId));
+        }
     }
     
     public void markAllAsRead(String userId) {
-        List<MessageThread> userThreadsList = getUserThreads(userId);
-        
-        userThreadsList.forEach(thread -> 
-            thread.getMessages().stream()
-                .filter(message -> message.getReceiverId().equals(userId))
-                .forEach(message -> message.setRead(true))
-        );
+        UnreadCounters counters = counters(userId);
+        for (String threadId : counters.getThreadsWithUnread()) {
+            MessageThread thread = threads.get(threadId);
+            counters.messagesRead(thread, userId, thread.markAllAsRead(userId));
+        }
     }
     
+    private UnreadCounters counters(String userId) {
+        return unreadCounters.computeIfAbsent(userId, k -> new UnreadCounters());
+    }
+    
+    /**
+     * Threads whose messages contain words starting with each word of the
+     * keyword (case-insensitive), most recent match first. A blank keyword
+     * returns every thread that has messages.
+     */
     public List<MessageThread> searchThreads(String userId, String keyword) {
-        List<MessageThread> userThreadsList = getUserThreads(userId);
-        
-        return userThreadsList.stream()
-            .filter(thread -> 
-                thread.getMessages().stream()
-                    .anyMatch(message -> message.getContent().toLowerCase().contains(keyword.toLowerCase()))
-            )
+        Set<String> queryTerms = ThreadSearchIndex.tokenize(keyword);
+        if (queryTerms.isEmpty()) {
+            return getInboxSummary(userId).stream()
+                .filter(summary -> summary.getLastMessage() != null)
+                .map(summary -> threads.get(summary.getThreadId()))
+                .collect(Collectors.toList());
+        }
+        ThreadSearchIndex index = searchIndexes.get(userId);
+        if (index == null) {
+            return new ArrayList<>();
+        }
+        return index.search(queryTerms).stream()
+            .map(threads::get)
             .collect(Collectors.toList());
     }
 }
 
 // VENDOR SERVICE
 
+/**
+ * Vendor directory with indexes by category, location and name words.
+ *
+ * Category and location are matched case-insensitively; vendors without
+ * one are filed under "uncategorized" / not indexed by location. Search
+ * terms are the words of the vendor's name and business name, kept sorted
+ * so a keyword is a prefix range scan rather than a scan of every vendor.
+ * Writes are synchronized so that re-indexing a changed profile is atomic;
+ * reads go straight to the concurrent indexes.
+ */
 class VendorService {
-    private Map<String, Vendor> vendors;
-    private Map<String, List<String>> vendorsByCategory;
+    private static final String UNCATEGORIZED = "uncategorized";
+    
+    private final Map<String, Vendor> vendors;
+    private final Map<String, Set<String>> vendorsByCategory;
+    private final Map<String, Set<String>> vendorsByLocation;
+    private final ConcurrentNavigableMap<String, Set<String>> vendorsByTerm;
+    // The keys each vendor was indexed under, since callers may change a
+    // Vendor in place and re-add the same instance
+    private final Map<String, IndexEntry> indexedAs;
+    private final VendorLeaderboard leaderboard;
     
     public VendorService() {
-        this.vendors = new HashMap<>();
-        this.vendorsByCategory = new HashMap<>();
+        this(new VendorLeaderboard());
+    }
+    
+    public VendorService(VendorLeaderboard leaderboard) {
+        this.vendors = new ConcurrentHashMap<>();
+        this.vendorsByCategory = new ConcurrentHashMap<>();
+        this.vendorsByLocation = new ConcurrentHashMap<>();
+        this.vendorsByTerm = new ConcurrentSkipListMap<>();
+        this.indexedAs = new ConcurrentHashMap<>();
+        this.leaderboard = leaderboard;
     }
     
-    public void addVendor(Vendor vendor) {
+    public synchronized void addVendor(Vendor vendor) {
         vendors.put(vendor.getId(), vendor);
-        // In a real implementation, you would have categories
-        vendorsByCategory.computeIfAbsent("photography", k -> new ArrayList<>())
-                         .add(vendor.getId());
+        unindex(vendor.getId());
+        index(vendor);
+    }
+    
+    /**
+     * Change a vendor's indexed profile fields, moving it between index
+     * entries as needed. Null arguments leave the field unchanged.
+     */
+    public synchronized boolean updateVendorProfile(String vendorId, String businessName, String category, String location) {
+        Vendor vendor = vendors.get(vendorId);
+        if (vendor == null) {
+            return false;
+        }
+        unindex(vendorId);
+        if (businessName != null) {
+            vendor.setBusinessName(businessName);
+        }
+        if (category != null) {
+            vendor.setCategory(category);
+        }
+        if (location != null) {
+            vendor.setLocation(location);
+        }
+        index(vendor);
+        return true;
+    }
+    
+    public synchronized boolean removeVendor(String vendorId) {
+        Vendor vendor = vendors.remove(vendorId);
+        if (vendor == null) {
+            return false;
+        }
+        unindex(vendorId);
+        leaderboard.vendorRemoved(vendorId);
+        return true;
     }
     
     public Vendor getVendor(String vendorId) {
         return vendors.get(vendorId);
     }
     
+    /**
+     * Vendors whose name or business name has a word starting with each word
+     * of the keyword (case-insensitive)
+     */
     public List<Vendor> searchVendors(String keyword) {
-        return vendors.values().stream()
-            .filter(vendor -> 
-                vendor.getName().toLowerCase().contains(keyword.toLowerCase()) ||
-                (vendor.getBusinessName() != null && 
-                 vendor.getBusinessName().toLowerCase().contains(keyword.toLowerCase()))
-            )
-            .collect(Collectors.toList());
+        Set<String> queryTerms = ThreadSearchIndex.tokenize(keyword);
+        if (queryTerms.isEmpty()) {
+            return new ArrayList<>(vendors.values());
+        }
+        Set<String> matches = null;
+        for (String prefix : queryTerms) {
+            Set<String> termMatches = new HashSet<>();
+            for (Set<String> ids : vendorsByTerm.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                termMatches.addAll(ids);
+            }
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.retainAll(termMatches);
+            }
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+        return toVendors(matches);
     }
     
     public List<Vendor> getVendorsByCategory(String category) {
-        List<String> vendorIds = vendorsByCategory.getOrDefault(category, new ArrayList<>());
-        return vendorIds.stream()
-            .map(vendors::get)
-            .collect(Collectors.toList());
+        return toVendors(vendorsByCategory.get(categoryKey(category)));
+    }
+    
+    public List<Vendor> getVendorsByLocation(String location) {
+        return toVendors(vendorsByLocation.get(locationKey(location)));
+    }
+    
+    public int getVendorCount(String category) {
+        Set<String> ids = vendorsByCategory.get(categoryKey(category));
+        return ids != null ? ids.size() : 0;
     }
     
     public List<Service> getVendorServices(String vendorId) {
@@ -963,7 +2822,7 @@ class VendorService {
         Map<String, Integer> stats = new HashMap<>();
         
         // Count vendors by category
-        for (Map.Entry<String, List<String>> entry : vendorsByCategory.entrySet()) {
+        for (Map.Entry<String, Set<String>> entry : vendorsByCategory.entrySet()) {
             stats.put(entry.getKey(), entry.getValue().size());
         }
         
@@ -971,6 +2830,86 @@ class VendorService {
         
         return stats;
     }
+    
+    private void index(Vendor vendor) {
+        String vendorId = vendor.getId();
+        IndexEntry entry = new IndexEntry(categoryKey(vendor.getCategory()), locationKey(vendor.getLocation()),
+            searchTerms(vendor.getName(), vendor.getBusinessName()));
+        vendorsByCategory.computeIfAbsent(entry.category, k -> ConcurrentHashMap.newKeySet())
+                         .add(vendorId);
+        leaderboard.categoryChanged(vendorId, entry.category);
+        if (entry.location != null) {
+            vendorsByLocation.computeIfAbsent(entry.location, k -> ConcurrentHashMap.newKeySet()).add(vendorId);
+        }
+        for (String term : entry.terms) {
+            vendorsByTerm.computeIfAbsent(term, k -> ConcurrentHashMap.newKeySet()).add(vendorId);
+        }
+        indexedAs.put(vendorId, entry);
+    }
+    
+    private void unindex(String vendorId) {
+        IndexEntry entry = indexedAs.remove(vendorId);
+        if (entry == null) {
+            return;
+        }
+        removeFrom(vendorsByCategory, entry.category, vendorId);
+        if (entry.location != null) {
+            removeFrom(vendorsByLocation, entry.location, vendorId);
+        }
+        for (String term : entry.terms) {
+            removeFrom(vendorsByTerm, term, vendorId);
+        }
+    }
+    
+    /**
+     * Where a vendor is filed in the category, location and search indexes
+     */
+    private static final class IndexEntry {
+        final String category;
+        final String location;
+        final Set<String> terms;
+        
+        IndexEntry(String category, String location, Set<String> terms) {
+            this.category = category;
+            this.location = location;
+            this.terms = terms;
+        }
+    }
+    
+    // Drop the entry once empty so statistics don't report zero-count keys
+    private static void removeFrom(Map<String, Set<String>> index, String key, String vendorId) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(vendorId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+    
+    private static Set<String> searchTerms(String name, String businessName) {
+        Set<String> terms = ThreadSearchIndex.tokenize(name);
+        terms.addAll(ThreadSearchIndex.tokenize(businessName));
+        return terms;
+    }
+    
+    /**
+     * Normalized category, as used by the category index and the leaderboard
+     */
+    static String categoryKey(String category) {
+        return category == null || category.trim().isEmpty() ? UNCATEGORIZED : category.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static String locationKey(String location) {
+        return location == null || location.trim().isEmpty() ? null : location.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private List<Vendor> toVendors(Set<String> vendorIds) {
+        if (vendorIds == null) {
+            return new ArrayList<>();
+        }
+        return vendorIds.stream()
+            .map(vendors::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
 }
 
 // REVIEW SYSTEM
@@ -1002,7 +2941,8 @@ class Review {
     public String getClientId() { return clientId; }
     public String getVendorId() { return vendorId; }
     public int getRating() { return rating; }
-    public void setRating(int rating) { this.rating = rating; }
+    // Ratings feed ReviewSystem's aggregates; change them through ReviewSystem.updateRating
+    void setRating(int rating) { this.rating = rating; }
     public String getComment() { return comment; }
     public void setComment(String comment) { this.comment = comment; }
     public LocalDateTime getCreatedAt() { return createdAt; }
@@ -1010,18 +2950,230 @@ class Review {
     public void addImage(String imageUrl) { this.images.add(imageUrl); }
 }
 
+/**
+ * Immutable rating summary for one vendor: how many reviews gave each star
+ * rating (index 1-5; index 0 is unused), their sum and their count.
+ * ReviewSystem swaps in a new instance on every change, so readers always
+ * see a histogram, sum and count that agree with each other.
+ */
+class RatingAggregate {
+    static final RatingAggregate EMPTY = new RatingAggregate(new int[6], 0, 0);
+    
+    private final int[] histogram;
+    private final long sum;
+    private final int count;
+    
+    private RatingAggregate(int[] histogram, long sum, int count) {
+        this.histogram = histogram;
+        this.sum = sum;
+        this.count = count;
+    }
+    
+    /**
+     * Copy with one rating removed (0 for none) and one added (0 for none)
+     */
+    RatingAggregate replace(int removed, int added) {
+        int[] next = histogram.clone();
+        long nextSum = sum;
+        int nextCount = count;
+        if (removed > 0) {
+            next[removed]--;
+            nextSum -= removed;
+            nextCount--;
+        }
+        if (added > 0) {
+            next[added]++;
+            nextSum += added;
+            nextCount++;
+        }
+        return new RatingAggregate(next, nextSum, nextCount);
+    }
+    
+    public int getCount() { return count; }
+    public long getSum() { return sum; }
+    public int getCount(int rating) { return histogram[rating]; }
+    
+    public double getAverage() {
+        return count > 0 ? (double) sum / count : 0.0;
+    }
+}
+
+/**
+ * A vendor's place on the leaderboard. Ordered best first: higher score,
+ * then more reviews, then vendor id so that entries are never equal.
+ */
+class LeaderboardEntry implements Comparable<LeaderboardEntry> {
+    private final String vendorId;
+    private final double score;
+    private final double average;
+    private final int reviewCount;
+    
+    LeaderboardEntry(String vendorId, double score, double average, int reviewCount) {
+        this.vendorId = vendorId;
+        this.score = score;
+        this.average = average;
+        this.reviewCount = reviewCount;
+    }
+    
+    public String getVendorId() { return vendorId; }
+    public double getScore() { return score; }
+    public double getAverage() { return average; }
+    public int getReviewCount() { return reviewCount; }
+    
+    @Override
+    public int compareTo(LeaderboardEntry other) {
+        int byScore = Double.compare(other.score, score);
+        if (byScore != 0) {
+            return byScore;
+        }
+        int byCount = Integer.compare(other.reviewCount, reviewCount);
+        return byCount != 0 ? byCount : vendorId.compareTo(other.vendorId);
+    }
+}
+
+/**
+ * Best-rated vendors per category, kept sorted as ratings change.
+ *
+ * Vendors are ranked by Bayesian average: (priorWeight * priorMean + sum of
+ * ratings) / (priorWeight + review count), i.e. each vendor starts with
+ * priorWeight imaginary reviews at priorMean. One 5-star review therefore
+ * no longer beats fifty 4.8s. The prior is fixed rather than the live mean
+ * over all reviews, so a new review changes only its own vendor's score
+ * and only that vendor is re-ranked.
+ *
+ * Each category (and "all" vendors) is a skip list ordered by score, so
+ * top-K walks K entries. Updates are synchronized; reads are lock-free.
+ * ReviewSystem reports rating changes and VendorService reports category
+ * changes; a vendor appears once it has at least one review.
+ */
+class VendorLeaderboard {
+    private static final String ALL = "";
+    
+    private final double priorMean;
+    private final double priorWeight;
+    private final Map<String, NavigableSet<LeaderboardEntry>> byCategory = new ConcurrentHashMap<>();
+    private final Map<String, LeaderboardEntry> entries = new ConcurrentHashMap<>();
+    private final Map<String, String> categories = new ConcurrentHashMap<>();
+    
+    public VendorLeaderboard() {
+        this(3.5, 5);
+    }
+    
+    public VendorLeaderboard(double priorMean, double priorWeight) {
+        this.priorMean = priorMean;
+        this.priorWeight = priorWeight;
+    }
+    
+    /**
+     * Re-rank a vendor from its latest rating aggregate. The aggregate is
+     * read under the lock so that concurrent updates cannot apply an older
+     * one last.
+     */
+    public synchronized void ratingChanged(String vendorId, Supplier<RatingAggregate> latest) {
+        RatingAggregate aggregate = latest.get();
+        LeaderboardEntry previous = entries.remove(vendorId);
+        String category = categories.get(vendorId);
+        if (previous != null) {
+            remove(category, previous);
+        }
+        if (aggregate.getCount() == 0) {
+            return;
+        }
+        double score = (priorWeight * priorMean + aggregate.getSum()) / (priorWeight + aggregate.getCount());
+        LeaderboardEntry entry = new LeaderboardEntry(vendorId, score, aggregate.getAverage(), aggregate.getCount());
+        entries.put(vendorId, entry);
+        add(category, entry);
+    }
+    
+    /**
+     * Record a vendor's category (normalized by the caller), moving any
+     * ranked entry to the new category
+     */
+    public synchronized void categoryChanged(String vendorId, String category) {
+        String previousCategory = categories.put(vendorId, category);
+        LeaderboardEntry entry = entries.get(vendorId);
+        if (entry != null && !category.equals(previousCategory)) {
+            if (previousCategory != null) {
+                set(previousCategory).remove(entry);
+            }
+            set(category).add(entry);
+        }
+    }
+    
+    public synchronized void vendorRemoved(String vendorId) {
+        LeaderboardEntry entry = entries.remove(vendorId);
+        String category = categories.remove(vendorId);
+        if (entry != null) {
+            remove(category, entry);
+        }
+    }
+    
+    /**
+     * The k best-ranked vendors in the category, or across all categories
+     * if category is null
+     */
+    public List<LeaderboardEntry> topK(String category, int k) {
+        NavigableSet<LeaderboardEntry> ranked = byCategory.get(category != null ? category : ALL);
+        List<LeaderboardEntry> top = new ArrayList<>(Math.max(0, Math.min(k, 64)));
+        if (ranked == null) {
+            return top;
+        }
+        for (LeaderboardEntry entry : ranked) {
+            if (top.size() >= k) {
+                break;
+            }
+            top.add(entry);
+        }
+        return top;
+    }
+    
+    private void add(String category, LeaderboardEntry entry) {
+        set(ALL).add(entry);
+        if (category != null) {
+            set(category).add(entry);
+        }
+    }
+    
+    private void remove(String category, LeaderboardEntry entry) {
+        set(ALL).remove(entry);
+        if (category != null) {
+            set(category).remove(entry);
+        }
+    }
+    
+    private NavigableSet<LeaderboardEntry> set(String category) {
+        return byCategory.computeIfAbsent(category, k -> new ConcurrentSkipListSet<>());
+    }
+}
+
 class ReviewSystem {
     private Map<String, Review> reviews;
     private Map<String, List<String>> vendorReviews;
     private Map<String, List<String>> clientReviews;
+    // Per-vendor rating summaries, replaced by CAS so reads never lock
+    private Map<String, AtomicReference<RatingAggregate>> vendorRatings;
+    private final VendorLeaderboard leaderboard;
     
     public ReviewSystem() {
+        this(new VendorLeaderboard());
+    }
+    
+    public ReviewSystem(VendorLeaderboard leaderboard) {
         this.reviews = new HashMap<>();
         this.vendorReviews = new HashMap<>();
         this.clientReviews = new HashMap<>();
+        this.vendorRatings = new ConcurrentHashMap<>();
+        this.leaderboard = leaderboard;
     }
     
+    /**
+     * Store a review and fold its rating into the vendor's aggregate.
+     * Returns null if the rating is not between 1 and 5.
+     */
     public String createReview(Review review) {
+        if (!isValidRating(review.getRating())) {
+            return null;
+        }
         reviews.put(review.getId(), review);
         
         // Update vendor reviews index
@@ -1032,9 +3184,26 @@ class ReviewSystem {
         clientReviews.computeIfAbsent(review.getClientId(), k -> new ArrayList<>())
                      .add(review.getId());
         
+        updateAggregate(review.getVendorId(), 0, review.getRating());
         return review.getId();
     }
     
+    /**
+     * Change a review's rating, keeping the vendor's aggregate in step
+     */
+    public boolean updateRating(String reviewId, int rating) {
+        Review review = reviews.get(reviewId);
+        if (review == null || !isValidRating(rating)) {
+            return false;
+        }
+        synchronized (review) {
+            int previous = review.getRating();
+            review.setRating(rating);
+            updateAggregate(review.getVendorId(), previous, rating);
+        }
+        return true;
+    }
+    
     public Review getReview(String reviewId) {
         return reviews.get(reviewId);
     }
@@ -1053,32 +3222,43 @@ class ReviewSystem {
                        .collect(Collectors.toList());
     }
     
+    public RatingAggregate getRatingAggregate(String vendorId) {
+        AtomicReference<RatingAggregate> aggregate = vendorRatings.get(vendorId);
+        return aggregate != null ? aggregate.get() : RatingAggregate.EMPTY;
+    }
+    
     public double getAverageRating(String vendorId) {
-        List<Review> vendorReviewsList = getVendorReviews(vendorId);
-        if (vendorReviewsList.isEmpty()) {
-            return 0.0;
-        }
-        
-        double sum = vendorReviewsList.stream()
-                                     .mapToInt(Review::getRating)
-                                     .sum();
-        return sum / vendorReviewsList.size();
+        return getRatingAggregate(vendorId).getAverage();
     }
     
     public Map<Integer, Integer> getRatingDistribution(String vendorId) {
-        List<Review> vendorReviewsList = getVendorReviews(vendorId);
+        RatingAggregate aggregate = getRatingAggregate(vendorId);
         Map<Integer, Integer> distribution = new HashMap<>();
-        
         for (int i = 1; i <= 5; i++) {
-            final int rating = i;
-            int count = (int) vendorReviewsList.stream()
-                                             .filter(review -> review.getRating() == rating)
-                                             .count();
-            distribution.put(i, count);
+            distribution.put(i, aggregate.getCount(i));
         }
-        
         return distribution;
     }
+    
+    /**
+     * The k best-rated vendors in a category (null for all), ranked by
+     * Bayesian average; see VendorLeaderboard. A blank category means
+     * "uncategorized", as in VendorService.
+     */
+    public List<LeaderboardEntry> getTopRatedVendors(String category, int k) {
+        return leaderboard.topK(category != null ? VendorService.categoryKey(category) : null, k);
+    }
+    
+    private void updateAggregate(String vendorId, int removed, int added) {
+        AtomicReference<RatingAggregate> aggregate =
+            vendorRatings.computeIfAbsent(vendorId, k -> new AtomicReference<>(RatingAggregate.EMPTY));
+        aggregate.updateAndGet(current -> current.replace(removed, added));
+        leaderboard.ratingChanged(vendorId, aggregate::get);
+    }
+    
+    private static boolean isValidRating(int rating) {
+        return rating >= 1 && rating <= 5;
+    }
 }
 
 // DATA PERSISTENCE
@@ -1147,7 +3327,7 @@ class APIServer {
         System.out.println("Configured User endpoints: /api/users/{id}, /api/users/profile");
         
         // Vendor endpoints
-        System.out.println("Configured Vendor endpoints: /api/vendors, /api/vendors/{id}, /api/vendors/search");
+        System.out.println("Configured Vendor endpoints: /api/vendors, /api/vendors/{id}, /api/vendors/search, /api/vendors/top");
         
         // Booking endpoints
         System.out.println("Configured Booking endpoints: /api/bookings, /api/bookings/{id}, /api/bookings/user/{id}");
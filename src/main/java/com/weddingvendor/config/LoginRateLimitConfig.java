@@ -0,0 +1,49 @@
+package com.weddingvendor.config;
+
+import com.weddingvendor.security.LoginRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Rate limits login attempts per client IP. The interceptor runs before the
+ * controller's request body is deserialized; AuthController applies the
+ * per-email limit once it has the email. The limiter is the process-wide
+ * instance also used by the legacy auth servlets.
+ */
+@Configuration
+public class LoginRateLimitConfig implements WebMvcConfigurer {
+    
+    @Bean
+    public LoginRateLimiter loginRateLimiter() {
+        return LoginRateLimiter.getShared();
+    }
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        LoginRateLimiter limiter = loginRateLimiter();
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+                if (!"POST".equals(request.getMethod())) {
+                    return true;
+                }
+                long waitMillis = limiter.tryAcquireIp(request.getRemoteAddr());
+                if (waitMillis == 0) {
+                    return true;
+                }
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader("Retry-After", String.valueOf(LoginRateLimiter.toRetryAfterSeconds(waitMillis)));
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getWriter().write("{\"success\":false,\"message\":\"Too many login attempts, please retry later\"}");
+                return false;
+            }
+        }).addPathPatterns("/api/auth/login");
+    }
+}
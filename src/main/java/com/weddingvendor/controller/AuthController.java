@@ -2,6 +2,7 @@
 package com.weddingvendor.controller;
 
 import com.weddingvendor.model.User;
+import com.weddingvendor.security.LoginRateLimiter;
 import com.weddingvendor.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -23,6 +24,9 @@ public class AuthController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody User user) {
         logger.info("Register request received for email: " + user.getEmail());
@@ -64,6 +68,18 @@ public class AuthController {
             return ResponseEntity.badRequest().body(response);
         }
         
+        // Per-IP limits are applied by LoginRateLimitConfig before the body is read
+        long waitMillis = loginRateLimiter.tryAcquireEmail(email);
+        if (waitMillis > 0) {
+            logger.warning("Too many login attempts for: " + email);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Too many login attempts, please retry later");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(LoginRateLimiter.toRetryAfterSeconds(waitMillis)))
+                .body(response);
+        }
+        
         if (userService.authenticateUser(email, password)) {
             Optional<User> userOpt;
             
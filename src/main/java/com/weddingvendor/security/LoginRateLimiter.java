@@ -0,0 +1,134 @@
+package com.weddingvendor.security;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket rate limiter for login attempts, keyed by client IP and by email.
+ *
+ * Deliberately free of servlet and Spring types so that the legacy servlets
+ * and the Spring AuthController share one instance (see {@link #getShared()})
+ * and therefore one budget per key. The IP check needs nothing but the
+ * remote address and runs before the request body is read; the email check
+ * runs once the email is known but before any user lookup or password hash.
+ *
+ * Each bucket is a single AtomicLong holding the time at which it will next
+ * be full (the GCRA form of a token bucket), so an attempt is one CAS with no
+ * locking. Buckets live in striped maps; every few thousand attempts one
+ * stripe is swept and buckets that have refilled completely are dropped,
+ * since a full bucket behaves exactly like a missing one.
+ */
+public class LoginRateLimiter {
+    private static final int STRIPES = 16;
+    private static final int SWEEP_EVERY = 4096;
+    
+    private static final LoginRateLimiter shared = new LoginRateLimiter(
+        20, TimeUnit.SECONDS.toNanos(3),    // per IP: burst of 20, then one attempt every 3s
+        5, TimeUnit.SECONDS.toNanos(12));   // per email: burst of 5, then 5 per minute
+    
+    private final Buckets byIp;
+    private final Buckets byEmail;
+    
+    public LoginRateLimiter(int ipBurst, long ipIntervalNanos, int emailBurst, long emailIntervalNanos) {
+        this.byIp = new Buckets(ipBurst, ipIntervalNanos);
+        this.byEmail = new Buckets(emailBurst, emailIntervalNanos);
+    }
+    
+    public static LoginRateLimiter getShared() {
+        return shared;
+    }
+    
+    /**
+     * Take one attempt from the client's IP bucket.
+     *
+     * @return 0 if allowed, otherwise the number of milliseconds until the next attempt is allowed
+     */
+    public long tryAcquireIp(String ip) {
+        return byIp.tryAcquire(ip != null ? ip : "unknown", System.nanoTime());
+    }
+    
+    /**
+     * Take one attempt from the email's bucket. Emails are compared case-insensitively.
+     *
+     * @return 0 if allowed, otherwise the number of milliseconds until the next attempt is allowed
+     */
+    public long tryAcquireEmail(String email) {
+        if (email == null) {
+            return 0;
+        }
+        return byEmail.tryAcquire(email.trim().toLowerCase(Locale.ROOT), System.nanoTime());
+    }
+    
+    public int getTrackedIpCount() {
+        return byIp.size();
+    }
+    
+    public int getTrackedEmailCount() {
+        return byEmail.size();
+    }
+    
+    /**
+     * Round a wait in milliseconds up to whole seconds for a Retry-After header
+     */
+    public static long toRetryAfterSeconds(long waitMillis) {
+        return Math.max(1, (waitMillis + 999) / 1000);
+    }
+    
+    private static class Buckets {
+        private final long interval;
+        private final long burstWindow;
+        @SuppressWarnings("unchecked")
+        private final Map<String, AtomicLong>[] stripes = new Map[STRIPES];
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final AtomicInteger nextStripe = new AtomicInteger();
+        
+        Buckets(int burst, long intervalNanos) {
+            this.interval = intervalNanos;
+            this.burstWindow = burst * intervalNanos;
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new ConcurrentHashMap<>();
+            }
+        }
+        
+        long tryAcquire(String key, long now) {
+            if ((attempts.incrementAndGet() & (SWEEP_EVERY - 1)) == 0) {
+                sweep(now);
+            }
+            
+            AtomicLong fullAt = stripes[(key.hashCode() & 0x7fffffff) % STRIPES]
+                .computeIfAbsent(key, k -> new AtomicLong(now));
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + interval;
+                if (next - now > burstWindow) {
+                    return TimeUnit.NANOSECONDS.toMillis(next - now - burstWindow) + 1;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+        
+        /**
+         * Drop buckets in one stripe that have refilled completely. An attempt
+         * racing with the removal may be counted against the dropped bucket,
+         * which at worst grants that key one extra attempt.
+         */
+        private void sweep(long now) {
+            Map<String, AtomicLong> stripe = stripes[(nextStripe.getAndIncrement() & 0x7fffffff) % STRIPES];
+            stripe.entrySet().removeIf(entry -> entry.getValue().get() - now <= 0);
+        }
+        
+        int size() {
+            int size = 0;
+            for (Map<String, AtomicLong> stripe : stripes) {
+                size += stripe.size();
+            }
+            return size;
+        }
+    }
+}